@@ -0,0 +1,93 @@
+// Message hot-path load test: POST /api/chat/send plus history reads at a fixed arrival rate.
+// Run once against an instance with the virtual profile and once without, then compare:
+//
+//   k6 run -e LABEL=platform loadtest/chat-load.js
+//   k6 run -e LABEL=virtual  loadtest/chat-load.js
+//   loadtest/compare.sh platform virtual
+//
+// The instance should run with the per-user message limit raised, e.g.
+// CHAT_RATELIMIT_MESSAGES_PERMINUTE=1000000, or sends will be answered with 429.
+import http from 'k6/http';
+import encoding from 'k6/encoding';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.0.2/index.js';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = parseInt(__ENV.USERS || '200');
+const RATE = parseInt(__ENV.RATE || '500');
+const DURATION = __ENV.DURATION || '2m';
+const LABEL = __ENV.LABEL || 'run';
+const READ_RATIO = parseFloat(__ENV.READ_RATIO || '0.2');
+
+const sendLatency = new Trend('chat_send_duration', true);
+const historyLatency = new Trend('chat_history_duration', true);
+
+export const options = {
+    scenarios: {
+        chat: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const run = Date.now().toString(36);
+    const users = [];
+    for (let i = 0; i < USERS; i++) {
+        // Registration is limited per client IP; each test user comes from its own address
+        const res = http.post(`${BASE_URL}/api/auth/register`,
+            JSON.stringify({ username: `lt-${run}-${i}`, password: 'load-test-password' }),
+            { headers: { 'Content-Type': 'application/json', 'X-Forwarded-For': `10.${(i >> 16) & 255}.${(i >> 8) & 255}.${i & 255}` } });
+        if (res.status !== 200) {
+            throw new Error(`register failed for user ${i}: ${res.status} ${res.body}`);
+        }
+        const token = res.json('accessToken');
+        const claims = JSON.parse(encoding.b64decode(token.split('.')[1], 'rawurl', 's'));
+        users.push({ id: Number(claims.sub), token });
+    }
+    return { users };
+}
+
+export default function ({ users }) {
+    const self = users[Math.floor(Math.random() * users.length)];
+    let other = users[Math.floor(Math.random() * users.length)];
+    if (other.id === self.id) {
+        other = users[(users.indexOf(self) + 1) % users.length];
+    }
+    const params = { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${self.token}` } };
+
+    if (Math.random() < READ_RATIO) {
+        const res = http.get(`${BASE_URL}/api/chat/history/scroll?otherUserId=${other.id}&size=50`, params);
+        historyLatency.add(res.timings.duration);
+        check(res, { 'history 200': (r) => r.status === 200 });
+    } else {
+        const res = http.post(`${BASE_URL}/api/chat/send`,
+            JSON.stringify({ receiverId: other.id, content: `load ${__VU}-${__ITER}` }), params);
+        sendLatency.add(res.timings.duration);
+        check(res, { 'send 200': (r) => r.status === 200 });
+    }
+}
+
+export function handleSummary(data) {
+    const metric = (name, stat) => (data.metrics[name] ? data.metrics[name].values[stat] : null);
+    const result = {
+        label: LABEL,
+        rate: RATE,
+        throughput: metric('http_reqs', 'rate'),
+        failed: metric('http_req_failed', 'rate'),
+        p99: metric('http_req_duration', 'p(99)'),
+        sendP99: metric('chat_send_duration', 'p(99)'),
+        historyP99: metric('chat_history_duration', 'p(99)'),
+    };
+    return {
+        stdout: textSummary(data, { indent: ' ', enableColors: true }),
+        [`loadtest/results/${LABEL}.json`]: JSON.stringify(result, null, 2),
+    };
+}
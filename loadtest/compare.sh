@@ -0,0 +1,18 @@
+#!/bin/sh
+# Prints throughput and p99 latency side by side for two chat-load.js runs.
+# Usage: loadtest/compare.sh <label-a> <label-b>   (defaults: platform virtual)
+set -e
+DIR=$(dirname "$0")/results
+A=${1:-platform}
+B=${2:-virtual}
+
+for label in "$A" "$B"; do
+    [ -f "$DIR/$label.json" ] || { echo "missing $DIR/$label.json, run k6 with -e LABEL=$label first" >&2; exit 1; }
+done
+
+printf '%-14s %14s %14s\n' metric "$A" "$B"
+for key in throughput failed p99 sendP99 historyP99; do
+    printf '%-14s %14s %14s\n' "$key" \
+        "$(jq -r ".$key // \"-\" | if type == \"number\" then (. * 100 | round / 100) else . end" "$DIR/$A.json")" \
+        "$(jq -r ".$key // \"-\" | if type == \"number\" then (. * 100 | round / 100) else . end" "$DIR/$B.json")"
+done
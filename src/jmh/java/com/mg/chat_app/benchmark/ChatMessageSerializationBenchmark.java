@@ -0,0 +1,115 @@
+package com.mg.chat_app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.kafka.ChatMessageDeserializer;
+import com.mg.chat_app.kafka.ChatMessageSerializer;
+import com.mg.chat_app.service.ChatMessageRedisSerializer;
+
+/*
+ * ChatMessageDto on the wire: the previous JSON serializers against ChatMessageCodec,
+ * for both Kafka records and node inbox payloads. Encoded sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatMessageSerializationBenchmark {
+
+    private static final String TOPIC = "chat-messages";
+
+    private final ChatMessageDto dto = new ChatMessageDto(
+            1_873_456_789_012L, 1042L, 2087L, "see you at the station at 6, I'll bring the tickets");
+
+    private JsonSerializer<ChatMessageDto> kafkaJsonSerializer;
+    private JsonDeserializer<ChatMessageDto> kafkaJsonDeserializer;
+    private ChatMessageSerializer kafkaBinarySerializer;
+    private ChatMessageDeserializer kafkaBinaryDeserializer;
+    private GenericJackson2JsonRedisSerializer redisJsonSerializer;
+    private ChatMessageRedisSerializer redisBinarySerializer;
+
+    private byte[] kafkaJson;
+    private byte[] kafkaBinary;
+    private byte[] redisJson;
+
+    @Setup
+    public void setup() {
+        kafkaJsonSerializer = new JsonSerializer<>();
+        kafkaJsonDeserializer = new JsonDeserializer<>(ChatMessageDto.class, false);
+        kafkaBinarySerializer = new ChatMessageSerializer();
+        kafkaBinaryDeserializer = new ChatMessageDeserializer();
+        redisJsonSerializer = new GenericJackson2JsonRedisSerializer();
+        redisBinarySerializer = new ChatMessageRedisSerializer(false);
+
+        kafkaJson = kafkaJsonSerializer.serialize(TOPIC, new RecordHeaders(), dto);
+        kafkaBinary = kafkaBinarySerializer.serialize(TOPIC, dto);
+        redisJson = redisJsonSerializer.serialize(dto);
+        System.out.printf("%nEncoded sizes: kafka json=%d B, redis json=%d B, binary=%d B%n",
+                kafkaJson.length, redisJson.length, kafkaBinary.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        kafkaJsonSerializer.close();
+        kafkaJsonDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] kafkaJsonSerialize() {
+        return kafkaJsonSerializer.serialize(TOPIC, new RecordHeaders(), dto);
+    }
+
+    @Benchmark
+    public ChatMessageDto kafkaJsonDeserialize() {
+        return kafkaJsonDeserializer.deserialize(TOPIC, kafkaJson);
+    }
+
+    @Benchmark
+    public byte[] kafkaBinarySerialize() {
+        return kafkaBinarySerializer.serialize(TOPIC, dto);
+    }
+
+    @Benchmark
+    public ChatMessageDto kafkaBinaryDeserialize() {
+        return kafkaBinaryDeserializer.deserialize(TOPIC, kafkaBinary);
+    }
+
+    @Benchmark
+    public byte[] redisJsonSerialize() {
+        return redisJsonSerializer.serialize(dto);
+    }
+
+    @Benchmark
+    public Object redisJsonDeserialize() {
+        return redisJsonSerializer.deserialize(redisJson);
+    }
+
+    @Benchmark
+    public byte[] redisBinarySerialize() {
+        return redisBinarySerializer.serialize(dto);
+    }
+
+    @Benchmark
+    public ChatMessageDto redisBinaryDeserialize() {
+        return redisBinarySerializer.deserialize(kafkaBinary);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mg.chat_app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.owasp.html.HtmlPolicyBuilder;
+import org.owasp.html.PolicyFactory;
+
+import com.mg.chat_app.service.InputSanitizer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputSanitizerBenchmark {
+
+    @Param({ "plain", "punctuated", "markup" })
+    public String kind;
+
+    // The sanitizer as it was before the fast path, for comparison
+    private final PolicyFactory legacyPolicy = new HtmlPolicyBuilder().toFactory();
+
+    private InputSanitizer sanitizer;
+    private String input;
+
+    @Setup
+    public void setup() {
+        sanitizer = new InputSanitizer();
+        input = switch (kind) {
+            case "plain" -> "hey, are we still on for lunch tomorrow? I can book the place near the office";
+            case "punctuated" -> "Q3 numbers: revenue > plan & costs < budget, see \"summary\" @ 10am = good news";
+            default -> "<b>look</b> at <a href=\"https://example.com\">this</a> <script>alert('x')</script> ok?";
+        };
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return sanitizer.sanitize(input);
+    }
+
+    @Benchmark
+    public String legacySanitize() {
+        return legacyPolicy.sanitize(input)
+                .replace("&amp;", "&")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'");
+    }
+}
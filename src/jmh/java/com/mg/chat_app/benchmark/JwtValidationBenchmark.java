@@ -0,0 +1,54 @@
+package com.mg.chat_app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mg.chat_app.service.JwtService;
+
+/*
+ * Access-token validation as done for every authenticated HTTP request and STOMP CONNECT.
+ * Redis is only used for refresh tokens, so none is wired here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs256-signing!!";
+
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(SECRET, TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1), 100_000, null);
+        uncachedJwtService = new JwtService(SECRET, TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1), 0, null);
+        token = jwtService.generateAccessToken("42");
+    }
+
+    // Repeat requests with the same token: served from the verified-token cache
+    @Benchmark
+    public String validateAccessToken() {
+        return jwtService.validateAccessToken(token);
+    }
+
+    // Full parse and HMAC verification on every call
+    @Benchmark
+    public String validateAccessTokenUncached() {
+        return uncachedJwtService.validateAccessToken(token);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mg.chat_app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/*
+ * Cost of turning one outbound message into a STOMP MESSAGE frame, i.e. what the
+ * simple broker pays per subscriber: payload conversion plus frame encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StompFrameEncodingBenchmark {
+
+    private final StompEncoder encoder = new StompEncoder();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final ChatMessageDto dto = new ChatMessageDto(
+            1_873_456_789_012L, 1042L, 2087L, "see you at the station at 6, I'll bring the tickets");
+
+    private Message<byte[]> message;
+
+    @Setup
+    public void setup() {
+        message = frame(jsonMapper.writeValueAsBytes(dto));
+    }
+
+    @Benchmark
+    public byte[] encodeFrame() {
+        return encoder.encode(message);
+    }
+
+    @Benchmark
+    public byte[] convertAndEncodeFrame() {
+        return encoder.encode(frame(jsonMapper.writeValueAsBytes(dto)));
+    }
+
+    private static Message<byte[]> frame(byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination("/topic/messages/2087");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setMessageId("7f3c1a2e-0001");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,112 @@
+package com.mg.chat_app.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import com.mg.chat_app.config.IndexedSubscriptionRegistry;
+
+/*
+ * Broker lookup for a per-user destination with every session holding the usual
+ * messages/typing/read subscriptions plus one group. Lookup time should stay flat
+ * for the indexed registry as sessions grow; the default one scans on cache misses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubscriptionLookupBenchmark {
+
+    private static final int GROUP_SIZE = 10;
+    private static final int LOOKUP_SET = 4096;
+
+    @Param({"1000", "100000"})
+    private int sessions;
+
+    private SubscriptionRegistry indexed;
+    private SubscriptionRegistry standard;
+    private Message<?>[] directLookups;
+    private Message<?>[] groupLookups;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        indexed = new IndexedSubscriptionRegistry();
+        standard = new DefaultSubscriptionRegistry();
+        for (int i = 0; i < sessions; i++) {
+            String sessionId = "s" + i;
+            subscribe(sessionId, "0", "/topic/messages/" + i);
+            subscribe(sessionId, "1", "/topic/typing/" + i);
+            subscribe(sessionId, "2", "/topic/read/" + i);
+            subscribe(sessionId, "3", "/topic/groups/" + (i / GROUP_SIZE));
+        }
+
+        directLookups = new Message<?>[LOOKUP_SET];
+        groupLookups = new Message<?>[LOOKUP_SET];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < LOOKUP_SET; i++) {
+            directLookups[i] = publish("/topic/messages/" + random.nextInt(sessions));
+            groupLookups[i] = publish("/topic/groups/" + random.nextInt(sessions / GROUP_SIZE));
+        }
+    }
+
+    @Benchmark
+    public MultiValueMap<String, String> indexedDirect() {
+        return indexed.findSubscriptions(next(directLookups));
+    }
+
+    @Benchmark
+    public MultiValueMap<String, String> defaultDirect() {
+        return standard.findSubscriptions(next(directLookups));
+    }
+
+    @Benchmark
+    public MultiValueMap<String, String> indexedGroup() {
+        return indexed.findSubscriptions(next(groupLookups));
+    }
+
+    @Benchmark
+    public MultiValueMap<String, String> defaultGroup() {
+        return standard.findSubscriptions(next(groupLookups));
+    }
+
+    private static Message<?> next(Message<?>[] lookups) {
+        return lookups[ThreadLocalRandom.current().nextInt(LOOKUP_SET)];
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        indexed.registerSubscription(message);
+        standard.registerSubscription(message);
+    }
+
+    private static Message<?> publish(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,45 @@
+package com.mg.chat_app.config;
+
+import java.util.List;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Handshake handler for the native endpoint. Tomcat implements permessage-deflate;
+ * this decides whether it is offered back to the client and counts which handshakes
+ * ended up compressed. Deflate shrinks JSON frames a lot, but each connection then
+ * keeps its own zlib state.
+ */
+public class DeflateHandshakeHandler extends DefaultHandshakeHandler {
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean deflateEnabled;
+    private final Counter compressed;
+    private final Counter uncompressed;
+
+    public DeflateHandshakeHandler(boolean deflateEnabled, MeterRegistry meterRegistry) {
+        this.deflateEnabled = deflateEnabled;
+        this.compressed = Counter.builder("chat.websocket.handshakes").tag("deflate", "true")
+                .register(meterRegistry);
+        this.uncompressed = Counter.builder("chat.websocket.handshakes").tag("deflate", "false")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+            List<WebSocketExtension> requestedExtensions, List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (!deflateEnabled) {
+            accepted = accepted.stream().filter(e -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(e.getName())).toList();
+        }
+        boolean deflate = accepted.stream().anyMatch(e -> PERMESSAGE_DEFLATE.equalsIgnoreCase(e.getName()));
+        (deflate ? compressed : uncompressed).increment();
+        return accepted;
+    }
+}
@@ -0,0 +1,45 @@
+package com.mg.chat_app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.mg.chat_app.entity.SnowflakeIdGenerator;
+import com.mg.chat_app.service.Snowflake;
+import com.mg.chat_app.service.SnowflakeNodeLease;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    /*
+     * An explicit node id wins; without one the id is leased from Redis, and startup
+     * fails if none is free. Closed on shutdown, which hands the id back.
+     */
+    @Bean
+    public SnowflakeNodeLease snowflakeNodeLease(StringRedisTemplate stringRedisTemplate,
+                                                 @Value("${chat.id.node-id:-1}") int configuredNodeId,
+                                                 @Value("${chat.id.lease-ttl:30s}") Duration leaseTtl,
+                                                 @Value("${HOSTNAME:}") String hostname) {
+        if (configuredNodeId >= 0) {
+            return new SnowflakeNodeLease(configuredNodeId);
+        }
+        return new SnowflakeNodeLease(stringRedisTemplate, leaseTtl, hostname);
+    }
+
+    @Bean
+    public Snowflake snowflake(SnowflakeNodeLease snowflakeNodeLease) {
+        return snowflakeNodeLease.snowflake();
+    }
+
+    /*
+     * Passes the bean to SnowflakeIdGenerator, which Hibernate instantiates itself.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer snowflakeHibernateProperties(Snowflake snowflake) {
+        return properties -> properties.put(SnowflakeIdGenerator.INSTANCE_SETTING, snowflake);
+    }
+}
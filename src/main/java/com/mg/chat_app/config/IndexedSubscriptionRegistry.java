@@ -0,0 +1,132 @@
+package com.mg.chat_app.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+/*
+ * Subscription registry for the simple broker that looks destinations up in a hash index.
+ * Every client subscribes to concrete destinations (/topic/messages/{id}, /topic/groups/{id}, ...),
+ * so a lookup is one map get. Only subscriptions containing wildcards go through the
+ * path matcher. The default registry scans every subscription on each cache miss, and with
+ * one set of destinations per user its cache misses almost always.
+ *
+ * Each destination maps to an immutable sessionId -> subscriptionIds snapshot that is
+ * replaced on subscribe and unsubscribe, so reads never lock. Selector headers are not supported.
+ */
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> NONE = CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    /* destination -> sessionId -> subscriptionIds, never mutated once published */
+    private final Map<String, LinkedMultiValueMap<String, String>> exact = new ConcurrentHashMap<>();
+
+    /* sessionId -> subscriptionId -> destination, for unsubscribe and disconnect */
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    private final List<PatternSubscription> patterns = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination,
+            Message<?> message) {
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            unindex(sessionId, subscriptionId, previous);
+        }
+        if (pathMatcher.isPattern(destination)) {
+            patterns.add(new PatternSubscription(sessionId, subscriptionId, destination));
+        } else {
+            exact.compute(destination, (d, current) -> with(current, sessionId, subscriptionId));
+        }
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            unindex(sessionId, subscriptionId, destination);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> unindex(sessionId, subscriptionId, destination));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        LinkedMultiValueMap<String, String> matches = exact.get(destination);
+        if (patterns.isEmpty()) {
+            return matches != null ? CollectionUtils.unmodifiableMultiValueMap(matches) : NONE;
+        }
+
+        LinkedMultiValueMap<String, String> result = matches != null
+                ? matches.deepCopy()
+                : new LinkedMultiValueMap<>();
+        for (PatternSubscription subscription : patterns) {
+            if (pathMatcher.match(subscription.pattern(), destination)) {
+                result.add(subscription.sessionId(), subscription.subscriptionId());
+            }
+        }
+        return result;
+    }
+
+    public int destinationCount() {
+        return exact.size();
+    }
+
+    private void unindex(String sessionId, String subscriptionId, String destination) {
+        if (pathMatcher.isPattern(destination)) {
+            patterns.remove(new PatternSubscription(sessionId, subscriptionId, destination));
+        } else {
+            exact.computeIfPresent(destination, (d, current) -> without(current, sessionId, subscriptionId));
+        }
+    }
+
+    private static LinkedMultiValueMap<String, String> with(LinkedMultiValueMap<String, String> current,
+            String sessionId, String subscriptionId) {
+        LinkedMultiValueMap<String, String> next = current != null
+                ? current.deepCopy()
+                : new LinkedMultiValueMap<>(1);
+        next.add(sessionId, subscriptionId);
+        return next;
+    }
+
+    /*
+     * Returns null once the last subscriber leaves, which drops the destination from the index.
+     */
+    private static LinkedMultiValueMap<String, String> without(LinkedMultiValueMap<String, String> current,
+            String sessionId, String subscriptionId) {
+        LinkedMultiValueMap<String, String> next = current.deepCopy();
+        List<String> ids = next.get(sessionId);
+        if (ids != null) {
+            ids.remove(subscriptionId);
+            if (ids.isEmpty()) {
+                next.remove(sessionId);
+            }
+        }
+        return next.isEmpty() ? null : next;
+    }
+
+    private record PatternSubscription(String sessionId, String subscriptionId, String pattern) {
+    }
+}
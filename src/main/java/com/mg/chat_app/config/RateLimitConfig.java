@@ -7,6 +7,8 @@ import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.mg.chat_app.security.HybridRateLimiter;
+import com.mg.chat_app.security.MessageRateLimitFilter;
 import com.mg.chat_app.security.RateLimitFilter;
 
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
@@ -50,4 +52,34 @@ public class RateLimitConfig {
         registration.setOrder(1);
         return registration;
     }
+
+    @Bean
+    public HybridRateLimiter messageRateLimiter(ProxyManager<String> bucketProxyManager,
+            @Value("${chat.rate-limit.messages.per-minute:60}") long perMinute,
+            @Value("${chat.rate-limit.messages.borrow-batch:5}") long borrowBatch,
+            @Value("${chat.rate-limit.deny-backoff:1s}") Duration denyBackoff) {
+        return new HybridRateLimiter(bucketProxyManager, "messages", perMinute, borrowBatch, denyBackoff);
+    }
+
+    @Bean
+    public HybridRateLimiter stompRateLimiter(ProxyManager<String> bucketProxyManager,
+            @Value("${chat.rate-limit.stomp.per-minute:600}") long perMinute,
+            @Value("${chat.rate-limit.stomp.borrow-batch:20}") long borrowBatch,
+            @Value("${chat.rate-limit.deny-backoff:1s}") Duration denyBackoff) {
+        return new HybridRateLimiter(bucketProxyManager, "stomp", perMinute, borrowBatch, denyBackoff);
+    }
+
+    /*
+     * Runs after the Spring Security filter chain so the user id is known.
+     * Servlet patterns cannot express /api/groups/{id}/messages; the filter matches it itself.
+     */
+    @Bean
+    public FilterRegistrationBean<MessageRateLimitFilter> messageRateLimitFilterRegistration(
+            HybridRateLimiter messageRateLimiter) {
+        FilterRegistrationBean<MessageRateLimitFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(new MessageRateLimitFilter(messageRateLimiter));
+        registration.addUrlPatterns("/api/chat/send", "/api/groups/*");
+        registration.setOrder(2);
+        return registration;
+    }
 }
@@ -1,5 +1,6 @@
 package com.mg.chat_app.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -8,6 +9,8 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.mg.chat_app.service.ChatMessageRedisSerializer;
+
 @Configuration
 public class RedisConfig {
 
@@ -32,4 +35,13 @@ public class RedisConfig {
         container.setConnectionFactory(connectionFactory);
         return container;
     }
+
+    /*
+     * Node inbox payloads; stays JSON until chat.codec.write-format=binary, after a full rollout
+     */
+    @Bean
+    public ChatMessageRedisSerializer chatMessageRedisSerializer(
+            @Value("${chat.codec.write-format:json}") String writeFormat) {
+        return new ChatMessageRedisSerializer(!"binary".equalsIgnoreCase(writeFormat));
+    }
 }
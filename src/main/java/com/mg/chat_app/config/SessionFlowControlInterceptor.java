@@ -0,0 +1,187 @@
+package com.mg.chat_app.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Per-session flow control on the inbound channel. Each session gets a local
+ * token bucket for client frames (SEND, SUBSCRIBE, UNSUBSCRIBE) and a cap on how
+ * many of its frames may wait in the inbound executor queue. Frames over either
+ * limit are dropped, so one flooding client cannot starve the shared threads.
+ */
+@Component
+public class SessionFlowControlInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionFlowControlInterceptor.class);
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final long framesPerSecond;
+    private final long burst;
+    private final int maxPending;
+    private final Counter droppedByRate;
+    private final Counter droppedByBacklog;
+
+    public SessionFlowControlInterceptor(MeterRegistry meterRegistry,
+            @Value("${chat.stomp.session.frames-per-second:20}") long framesPerSecond,
+            @Value("${chat.stomp.session.burst:40}") long burst,
+            @Value("${chat.stomp.session.max-pending:100}") int maxPending) {
+        this.framesPerSecond = framesPerSecond;
+        this.burst = Math.max(burst, framesPerSecond);
+        this.maxPending = maxPending;
+        this.droppedByRate = Counter.builder("chat.stomp.inbound.dropped").tag("reason", "rate")
+                .register(meterRegistry);
+        this.droppedByBacklog = Counter.builder("chat.stomp.inbound.dropped").tag("reason", "backlog")
+                .register(meterRegistry);
+        Gauge.builder("chat.stomp.sessions", sessions, Map::size)
+                .description("Sessions with inbound flow-control state on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.stomp.session.inbound.pending.max", sessions, SessionFlowControlInterceptor::maxPendingDepth)
+                .description("Deepest per-session inbound backlog")
+                .register(meterRegistry);
+        Gauge.builder("chat.stomp.session.inbound.pending.total", sessions, SessionFlowControlInterceptor::totalPendingDepth)
+                .description("Inbound frames queued across all sessions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (!isTracked(message)) {
+            return message;
+        }
+
+        SessionState state = sessions.computeIfAbsent(sessionId, id -> new SessionState(newBucket()));
+        if (!state.bucket.tryConsume(1)) {
+            droppedByRate.increment();
+            log.debug("Dropped frame from session {}: over {} frames/s", sessionId, framesPerSecond);
+            return null;
+        }
+
+        int handlers = handlerCount(channel);
+        if (state.pending.get() >= maxPending * handlers) {
+            droppedByBacklog.increment();
+            log.debug("Dropped frame from session {}: backlog full", sessionId);
+            return null;
+        }
+        state.pending.addAndGet(handlers);
+        return message;
+    }
+
+    /*
+     * Called when a later interceptor dropped the frame (sent=false) or dispatch failed.
+     * Hand back what preSend counted; tasks that were queued anyway decrement down to 0 at most.
+     */
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if ((sent && ex == null) || !isTracked(message)) {
+            return;
+        }
+        SessionState state = sessionState(message);
+        if (state != null) {
+            int handlers = handlerCount(channel);
+            state.pending.updateAndGet(v -> Math.max(0, v - handlers));
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        SessionState state = isTracked(message) ? sessionState(message) : null;
+        if (state != null) {
+            state.pending.updateAndGet(v -> v > 0 ? v - 1 : 0);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private SessionState sessionState(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    /*
+     * Frames preSend counts, and therefore the ones the completion callbacks must give back.
+     */
+    private static boolean isTracked(Message<?> message) {
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders()) != null
+                && isClientFrame(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()));
+    }
+
+    /*
+     * Every subscriber of the channel handles the frame once, and each hand-off counts as pending.
+     */
+    private static int handlerCount(MessageChannel channel) {
+        return channel instanceof AbstractSubscribableChannel subscribable
+                ? Math.max(1, subscribable.getSubscribers().size())
+                : 1;
+    }
+
+    private static boolean isClientFrame(SimpMessageType type) {
+        return type == SimpMessageType.MESSAGE
+                || type == SimpMessageType.SUBSCRIBE
+                || type == SimpMessageType.UNSUBSCRIBE;
+    }
+
+    private Bucket newBucket() {
+        return Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(burst)
+                        .refillGreedy(framesPerSecond, Duration.ofSeconds(1))
+                        .build())
+                .build();
+    }
+
+    private static double maxPendingDepth(Map<String, SessionState> sessions) {
+        int max = 0;
+        for (SessionState state : sessions.values()) {
+            max = Math.max(max, state.pending.get());
+        }
+        return max;
+    }
+
+    private static double totalPendingDepth(Map<String, SessionState> sessions) {
+        long total = 0;
+        for (SessionState state : sessions.values()) {
+            total += state.pending.get();
+        }
+        return total;
+    }
+
+    private static final class SessionState {
+        private final Bucket bucket;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private SessionState(Bucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mg.chat_app.config;
+
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Queue depth and thread usage of the STOMP inbound and outbound channel executors,
+ * tagged by channel, for sizing pods against real load. Under the virtual profile
+ * there is no queue, so only frames in flight and the concurrency limit are exported.
+ */
+@Component
+public class StompChannelMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(StompChannelMetrics.class);
+
+    public StompChannelMetrics(MeterRegistry meterRegistry,
+            @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+            @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+        register(meterRegistry, "inbound", inboundExecutor);
+        register(meterRegistry, "outbound", outboundExecutor);
+    }
+
+    private static void register(MeterRegistry meterRegistry, String channel, Executor executor) {
+        if (executor instanceof VirtualChannelExecutor virtual) {
+            // No queue or pool: frames past the concurrency limit wait on the submitting thread
+            Gauge.builder("chat.stomp.channel.active", virtual, VirtualChannelExecutor::getActiveCount)
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            Gauge.builder("chat.stomp.channel.limit", virtual, VirtualChannelExecutor::getConcurrencyLimit)
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            return;
+        }
+        if (!(executor instanceof ThreadPoolTaskExecutor pool)) {
+            log.warn("No STOMP {} channel gauges for executor type {}", channel, executor.getClass().getName());
+            return;
+        }
+        Gauge.builder("chat.stomp.channel.queued", pool, ThreadPoolTaskExecutor::getQueueSize)
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("chat.stomp.channel.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("chat.stomp.channel.pool.size", pool, ThreadPoolTaskExecutor::getPoolSize)
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+}
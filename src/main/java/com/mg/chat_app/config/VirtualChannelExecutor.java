@@ -0,0 +1,41 @@
+package com.mg.chat_app.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/*
+ * STOMP channel executor for the virtual profile: one virtual thread per frame, capped
+ * by a concurrency limit. Counts frames being handled, since there is no pool to ask.
+ */
+final class VirtualChannelExecutor extends SimpleAsyncTaskExecutor {
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    VirtualChannelExecutor(String threadNamePrefix, int concurrencyLimit) {
+        super(threadNamePrefix);
+        setVirtualThreads(true);
+        setConcurrencyLimit(concurrencyLimit);
+    }
+
+    int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    protected void doExecute(Runnable task) {
+        active.incrementAndGet();
+        try {
+            super.doExecute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            active.decrementAndGet();
+            throw e;
+        }
+    }
+}
@@ -1,23 +1,72 @@
 package com.mg.chat_app.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
+import com.mg.chat_app.security.StompRateLimitInterceptor;
 import com.mg.chat_app.security.WebSocketAuthInterceptor;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableWebSocketMessageBroker
-@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
 	private final WebSocketAuthInterceptor authInterceptor;
+	private final SessionFlowControlInterceptor flowControlInterceptor;
+	private final StompRateLimitInterceptor rateLimitInterceptor;
+	private final ChannelPool inbound;
+	private final ChannelPool outbound;
+	private final int sendTimeLimitMs;
+	private final int sendBufferSizeLimit;
+	private final int messageSizeLimit;
+	private final DeflateHandshakeHandler nativeHandshakeHandler;
+	private final boolean virtualThreads;
+	private final int virtualConcurrencyLimit;
 
+	public WebSocketConfig(WebSocketAuthInterceptor authInterceptor,
+			SessionFlowControlInterceptor flowControlInterceptor,
+			StompRateLimitInterceptor rateLimitInterceptor,
+			MeterRegistry meterRegistry,
+			@Value("${chat.stomp.inbound.core-pool-size:8}") int inboundCore,
+			@Value("${chat.stomp.inbound.max-pool-size:32}") int inboundMax,
+			@Value("${chat.stomp.inbound.queue-capacity:10000}") int inboundQueue,
+			@Value("${chat.stomp.outbound.core-pool-size:8}") int outboundCore,
+			@Value("${chat.stomp.outbound.max-pool-size:32}") int outboundMax,
+			@Value("${chat.stomp.outbound.queue-capacity:10000}") int outboundQueue,
+			@Value("${chat.stomp.send-time-limit-ms:15000}") int sendTimeLimitMs,
+			@Value("${chat.stomp.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+			@Value("${chat.stomp.message-size-limit:32768}") int messageSizeLimit,
+			@Value("${chat.websocket.permessage-deflate:true}") boolean permessageDeflate,
+			@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+			@Value("${chat.stomp.virtual-concurrency-limit:1000}") int virtualConcurrencyLimit) {
+		this.authInterceptor = authInterceptor;
+		this.flowControlInterceptor = flowControlInterceptor;
+		this.rateLimitInterceptor = rateLimitInterceptor;
+		this.inbound = new ChannelPool(inboundCore, inboundMax, inboundQueue);
+		this.outbound = new ChannelPool(outboundCore, outboundMax, outboundQueue);
+		this.sendTimeLimitMs = sendTimeLimitMs;
+		this.sendBufferSizeLimit = sendBufferSizeLimit;
+		this.messageSizeLimit = messageSizeLimit;
+		this.nativeHandshakeHandler = new DeflateHandshakeHandler(permessageDeflate, meterRegistry);
+		this.virtualThreads = virtualThreads;
+		this.virtualConcurrencyLimit = virtualConcurrencyLimit;
+	}
+
+	/*
+	 * /ws-native is plain STOMP over WebSocket with permessage-deflate; clients use it first.
+	 * /ws keeps SockJS for browsers or networks where the native upgrade fails.
+	 */
 	@Override
 	public void registerStompEndpoints(StompEndpointRegistry registry) {
+		registry.addEndpoint("/ws-native").setAllowedOriginPatterns("*").setHandshakeHandler(nativeHandshakeHandler);
 		registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
 	}
 
@@ -27,9 +76,85 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 		registry.enableSimpleBroker("/topic"); // MUST BE /topic
 	}
 
+	/*
+	 * Auth runs first so CONNECT gets its principal; the local per-session
+	 * flow control then sheds floods before the Redis-backed rate limiter is touched.
+	 */
 	@Override
 	public void configureClientInboundChannel(ChannelRegistration registration) {
-		registration.interceptors(authInterceptor);
+		configureExecutor(registration, "stomp-inbound-", inbound);
+		registration.interceptors(authInterceptor, flowControlInterceptor, rateLimitInterceptor);
+	}
+
+	@Override
+	public void configureClientOutboundChannel(ChannelRegistration registration) {
+		configureExecutor(registration, "stomp-outbound-", outbound);
+	}
+
+	/*
+	 * A client that stops reading is closed once its buffered frames pass either limit,
+	 * instead of holding outbound threads.
+	 */
+	@Override
+	public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+		registration.setSendTimeLimit(sendTimeLimitMs)
+				.setSendBufferSizeLimit(sendBufferSizeLimit)
+				.setMessageSizeLimit(messageSizeLimit);
+	}
+
+	/*
+	 * Tomcat allocates both message buffers for every connection. Text frames must fit
+	 * a whole STOMP frame (5000-char content plus headers); binary frames are unused.
+	 */
+	@Bean
+	public ServletServerContainerFactoryBean webSocketContainer(
+			@Value("${chat.websocket.max-text-message-buffer-size:8192}") int maxTextMessageBufferSize,
+			@Value("${chat.websocket.max-binary-message-buffer-size:1024}") int maxBinaryMessageBufferSize) {
+		ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+		container.setMaxTextMessageBufferSize(maxTextMessageBufferSize);
+		container.setMaxBinaryMessageBufferSize(maxBinaryMessageBufferSize);
+		container.setAsyncSendTimeout((long) sendTimeLimitMs);
+		return container;
+	}
+
+	/*
+	 * With virtual threads each frame runs on its own thread. Pool sizes do not apply;
+	 * virtual-concurrency-limit caps frames in flight, and past it the submitting thread waits.
+	 */
+	private void configureExecutor(ChannelRegistration registration, String threadNamePrefix, ChannelPool pool) {
+		if (!virtualThreads) {
+			pool.apply(registration);
+			return;
+		}
+		registration.executor(new VirtualChannelExecutor(threadNamePrefix, virtualConcurrencyLimit));
+	}
+
+	/*
+	 * The broker registration has no hook for the subscription registry, so it is
+	 * swapped on the handler before the broker starts. Static so this configuration
+	 * class is not created early.
+	 */
+	@Bean
+	static BeanPostProcessor indexedSubscriptionRegistryInstaller() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof SimpleBrokerMessageHandler broker) {
+					broker.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+				}
+				return bean;
+			}
+		};
+	}
+
+	private record ChannelPool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+
+		void apply(ChannelRegistration registration) {
+			registration.taskExecutor()
+					.corePoolSize(corePoolSize)
+					.maxPoolSize(Math.max(corePoolSize, maxPoolSize))
+					.queueCapacity(queueCapacity);
+		}
 	}
 
 }
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import com.mg.chat_app.service.LocalSessionRegistry;
 import com.mg.chat_app.service.WebSocketSessionService;
 
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,7 @@ public class WebSocketEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketEventListener.class);
     private final WebSocketSessionService sessionService;
+    private final LocalSessionRegistry localSessions;
     private final SimpMessagingTemplate messagingTemplate;
 
     @EventListener
@@ -31,6 +33,7 @@ public class WebSocketEventListener {
         if (principal != null) {
             Long userId = Long.valueOf(principal.getName());
             String sessionId = accessor.getSessionId();
+            localSessions.register(userId, sessionId);
             sessionService.registerUser(userId, sessionId);
             log.info("WebSocket connected: userId={}, sessionId={}", userId, sessionId);
             messagingTemplate.convertAndSend("/topic/presence",
@@ -44,6 +47,12 @@ public class WebSocketEventListener {
         Principal principal = accessor.getUser();
         if (principal != null) {
             Long userId = Long.valueOf(principal.getName());
+            boolean lastLocalSession = localSessions.unregister(userId, event.getSessionId());
+            if (!lastLocalSession) {
+                // Another tab of the same user is still connected to this node
+                log.info("WebSocket session closed: userId={}, sessionId={}", userId, event.getSessionId());
+                return;
+            }
             sessionService.removeUser(userId);
             log.info("WebSocket disconnected: userId={}", userId);
             messagingTemplate.convertAndSend("/topic/presence",
@@ -16,6 +16,7 @@ import com.mg.chat_app.dto.TokenResponse;
 import com.mg.chat_app.entity.User;
 import com.mg.chat_app.repository.UserRepository;
 import com.mg.chat_app.service.JwtService;
+import com.mg.chat_app.service.UserDirectoryService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,7 @@ public class AuthController {
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDirectoryService userDirectory;
 
     @PostMapping("/register")
     public TokenResponse register(@Valid @RequestBody LoginRequest request) {
@@ -41,6 +43,7 @@ public class AuthController {
                 .createdAt(LocalDateTime.now())
                 .build();
         user = userRepository.save(user);
+        userDirectory.add(user);
 
         String userId = user.getUserId().toString();
         String accessToken = jwtService.generateAccessToken(userId);
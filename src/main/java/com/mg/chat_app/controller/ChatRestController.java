@@ -1,32 +1,35 @@
 package com.mg.chat_app.controller;
 
 import java.security.Principal;
-import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.dto.CursorPage;
 import com.mg.chat_app.dto.SendMessageRequest;
 import com.mg.chat_app.dto.UserDto;
 import com.mg.chat_app.entity.Message;
-import com.mg.chat_app.entity.Presence;
-import com.mg.chat_app.model.MessageStatus;
 import com.mg.chat_app.repository.MessageRepository;
-import com.mg.chat_app.repository.UserRepository;
-import com.mg.chat_app.repository.PresenceRepository;
 import com.mg.chat_app.service.ChatService;
+import com.mg.chat_app.service.MessageHistoryService;
+import com.mg.chat_app.service.OfflineDrainService;
+import com.mg.chat_app.service.RosterService;
+import com.mg.chat_app.service.UnreadCounterService;
+import com.mg.chat_app.service.UserDirectoryService;
+import com.mg.chat_app.service.WebSocketSessionService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -36,18 +39,31 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ChatRestController {
 
+    private static final int MAX_PRESENCE_IDS = 500;
+    private static final int DEFAULT_USER_LIST_SIZE = 200;
+
     private final MessageRepository messageRepository;
-    private final UserRepository userRepository;
+    private final UserDirectoryService userDirectory;
+    private final UnreadCounterService unreadCounters;
+    private final OfflineDrainService offlineDrain;
     private final ChatService chatService;
-    private final PresenceRepository presenceRepository;
+    private final MessageHistoryService historyService;
+    private final WebSocketSessionService sessionService;
+    private final RosterService rosterService;
 
     @GetMapping("/users")
     public List<UserDto> listUsers(Principal principal) {
         Long currentId = Long.valueOf(principal.getName());
-        return userRepository.findAll().stream()
-                .filter(u -> !u.getUserId().equals(currentId))
-                .map(u -> new UserDto(u.getUserId(), u.getUsername()))
-                .toList();
+        return userDirectory.search(null, null, DEFAULT_USER_LIST_SIZE, currentId).getItems();
+    }
+
+    @GetMapping("/directory")
+    public CursorPage<UserDto> searchUsers(@RequestParam(required = false) String prefix,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "50") int limit,
+                                           Principal principal) {
+        Long currentId = Long.valueOf(principal.getName());
+        return userDirectory.search(prefix, cursor, limit, currentId);
     }
 
     @PostMapping("/send")
@@ -61,14 +77,15 @@ public class ChatRestController {
         return chatService.sendMessage(msg);
     }
 
-    @Transactional
-    @GetMapping("/offline")
-    public List<Message> fetchOffline(Principal principal) {
+    /*
+     * Streams the SENT backlog as a JSON array and marks it DELIVERED chunk by chunk.
+     */
+    @GetMapping(value = "/offline", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> fetchOffline(Principal principal) {
         Long userId = Long.valueOf(principal.getName());
-        List<Message> messages = messageRepository.findByReceiverIdAndStatus(userId, MessageStatus.SENT);
-        messages.forEach(m -> m.setStatus(MessageStatus.DELIVERED));
-        messageRepository.saveAll(messages);
-        return messages;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> offlineDrain.drain(userId, out));
     }
 
     @GetMapping("/history")
@@ -81,53 +98,46 @@ public class ChatRestController {
                 PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")));
     }
 
+    @GetMapping("/history/scroll")
+    public CursorPage<Message> scrollHistory(@RequestParam Long otherUserId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int size,
+                                             Principal principal) {
+        Long userId = Long.valueOf(principal.getName());
+        return historyService.conversation(userId, otherUserId, cursor, size);
+    }
+
+    /*
+     * Presence for the given ids, or for the caller's roster when none are passed.
+     * Answered from Redis in one MGET.
+     */
     @GetMapping("/presence")
-    public Map<Long, Boolean> getPresence(Principal principal) {
+    public Map<Long, Boolean> getPresence(@RequestParam(required = false) List<Long> ids, Principal principal) {
         Long currentId = Long.valueOf(principal.getName());
-        Map<Long, Boolean> presenceMap = new HashMap<>();
-        presenceRepository.findAll()
-                .forEach(p -> {
-                    if (!p.getUserId().equals(currentId)) {
-                        presenceMap.put(p.getUserId(), Boolean.TRUE.equals(p.getIsOnline()));
-                    }
-                });
-        // Include users without a presence record as offline
-        userRepository.findAll().stream()
-                .filter(u -> !u.getUserId().equals(currentId) && !presenceMap.containsKey(u.getUserId()))
-                .forEach(u -> presenceMap.put(u.getUserId(), false));
-        return presenceMap;
+        List<Long> userIds = ids != null ? ids : rosterService.getRoster(currentId);
+        if (userIds.size() > MAX_PRESENCE_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_PRESENCE_IDS + " ids per presence query");
+        }
+        return sessionService.onlineStatus(userIds.stream().distinct().filter(id -> !id.equals(currentId)).toList());
     }
 
     @GetMapping("/unread-counts")
     public Map<Long, Long> getUnreadCounts(Principal principal) {
         Long userId = Long.valueOf(principal.getName());
-        Map<Long, Long> counts = new HashMap<>();
-        messageRepository.countUnreadBySender(userId, List.of(MessageStatus.SENT, MessageStatus.DELIVERED))
-                .forEach(row -> counts.put((Long) row[0], (Long) row[1]));
-        return counts;
+        return unreadCounters.directCounts(userId);
     }
 
-    @Transactional
     @PostMapping("/heartbeat")
     public Map<String, Boolean> heartbeat(Principal principal) {
         Long userId = Long.valueOf(principal.getName());
-        Presence presence = presenceRepository.findById(userId)
-                .orElse(Presence.builder().userId(userId).build());
-        presence.setIsOnline(true);
-        presence.setLastSeen(LocalDateTime.now());
-        presenceRepository.save(presence);
+        sessionService.heartbeat(userId);
         return Map.of("ok", true);
     }
 
-    @Transactional
     @PostMapping("/go-offline")
     public Map<String, Boolean> goOffline(Principal principal) {
         Long userId = Long.valueOf(principal.getName());
-        presenceRepository.findById(userId).ifPresent(p -> {
-            p.setIsOnline(false);
-            p.setLastSeen(LocalDateTime.now());
-            presenceRepository.save(p);
-        });
+        sessionService.goOffline(userId);
         return Map.of("ok", true);
     }
 }
@@ -1,5 +1,7 @@
 package com.mg.chat_app.controller;
 
+import java.security.Principal;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -9,9 +11,12 @@ import org.springframework.stereotype.Controller;
 
 import com.mg.chat_app.dto.ChatMessageDto;
 import com.mg.chat_app.dto.ReadReceiptDto;
+import com.mg.chat_app.dto.ReadUpToRequest;
 import com.mg.chat_app.entity.Message;
 import com.mg.chat_app.model.MessageStatus;
 import com.mg.chat_app.repository.MessageRepository;
+import com.mg.chat_app.service.ReadWatermarkService;
+import com.mg.chat_app.service.UnreadCounterService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,6 +27,8 @@ public class ChatWebSocketController {
     private static final Logger log = LoggerFactory.getLogger(ChatWebSocketController.class);
     private final SimpMessagingTemplate messagingTemplate;
     private final MessageRepository messageRepository;
+    private final UnreadCounterService unreadCounters;
+    private final ReadWatermarkService readWatermarks;
 
     @MessageMapping("/read")
     public void markAsRead(@Payload ChatMessageDto dto) {
@@ -34,8 +41,12 @@ public class ChatWebSocketController {
             return;
         }
 
+        boolean wasUnread = msg.getStatus() != MessageStatus.READ;
         msg.setStatus(MessageStatus.READ);
         messageRepository.save(msg);
+        if (wasUnread) {
+            unreadCounters.decrementDirect(msg.getReceiverId(), msg.getSenderId(), 1);
+        }
 
         ReadReceiptDto receipt = new ReadReceiptDto(
                 dto.getMessageId(), dto.getSenderId(), dto.getReceiverId(), "READ");
@@ -43,6 +54,20 @@ public class ChatWebSocketController {
         messagingTemplate.convertAndSend("/topic/read/" + dto.getSenderId(), receipt);
     }
 
+    /*
+     * Marks every message from otherUserId up to upToMessageId as read in one UPDATE
+     * and sends the sender a single range receipt. The reader is the authenticated user.
+     */
+    @MessageMapping("/read-up-to")
+    public void markReadUpTo(@Payload ReadUpToRequest request, Principal principal) {
+        if (principal == null || request.getOtherUserId() == null || request.getUpToMessageId() == null) {
+            return;
+        }
+        Long readerId = Long.valueOf(principal.getName());
+        readWatermarks.markReadUpTo(readerId, request.getOtherUserId(), request.getUpToMessageId())
+                .ifPresent(receipt -> messagingTemplate.convertAndSend("/topic/read/" + receipt.getSenderId(), receipt));
+    }
+
     @MessageMapping("/typing")
     public void typing(@Payload ChatMessageDto dto) {
         messagingTemplate.convertAndSend("/topic/typing/" + dto.getReceiverId(), dto.getSenderId());
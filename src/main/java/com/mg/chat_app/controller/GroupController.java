@@ -2,6 +2,7 @@ package com.mg.chat_app.controller;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,16 +18,16 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.mg.chat_app.dto.ChatMessageDto;
 import com.mg.chat_app.dto.CreateGroupRequest;
+import com.mg.chat_app.dto.CursorPage;
 import com.mg.chat_app.dto.GroupDto;
 import com.mg.chat_app.dto.GroupMessageRequest;
 import com.mg.chat_app.entity.ChatGroup;
 import com.mg.chat_app.entity.Message;
-import com.mg.chat_app.kafka.ChatMessageProducer;
-import com.mg.chat_app.model.MessageStatus;
-import com.mg.chat_app.model.MessageType;
 import com.mg.chat_app.repository.MessageRepository;
+import com.mg.chat_app.service.ChatService;
 import com.mg.chat_app.service.GroupService;
-import com.mg.chat_app.service.InputSanitizer;
+import com.mg.chat_app.service.MessageHistoryService;
+import com.mg.chat_app.service.UnreadCounterService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -38,8 +39,9 @@ public class GroupController {
 
     private final GroupService groupService;
     private final MessageRepository messageRepository;
-    private final ChatMessageProducer producer;
-    private final InputSanitizer inputSanitizer;
+    private final ChatService chatService;
+    private final MessageHistoryService historyService;
+    private final UnreadCounterService unreadCounters;
 
     @PostMapping
     public GroupDto createGroup(@Valid @RequestBody CreateGroupRequest req, Principal principal) {
@@ -54,6 +56,12 @@ public class GroupController {
         return groupService.getGroupsForUser(userId);
     }
 
+    @GetMapping("/unread-counts")
+    public Map<Long, Long> getGroupUnreadCounts(Principal principal) {
+        Long userId = Long.valueOf(principal.getName());
+        return unreadCounters.groupCounts(userId);
+    }
+
     @PostMapping("/{groupId}/members")
     public void addMember(@PathVariable Long groupId,
                           @RequestParam Long userId,
@@ -78,21 +86,7 @@ public class GroupController {
         if (!groupService.isMember(groupId, senderId)) {
             throw new SecurityException("Not a member of this group");
         }
-
-        Message msg = Message.builder()
-                .senderId(senderId)
-                .content(inputSanitizer.sanitize(req.getContent()))
-                .groupId(groupId)
-                .messageType(MessageType.GROUP)
-                .status(MessageStatus.SENT)
-                .build();
-        msg = messageRepository.save(msg);
-
-        ChatMessageDto dto = new ChatMessageDto(
-                msg.getMessageId(), msg.getSenderId(), null, msg.getContent(), groupId);
-        producer.publishGroupMessage(dto);
-
-        return dto;
+        return chatService.sendGroupMessage(groupId, senderId, req.getContent());
     }
 
     @GetMapping("/{groupId}/messages")
@@ -107,4 +101,20 @@ public class GroupController {
         return messageRepository.findByGroupIdOrderByCreatedAtDesc(groupId,
                 PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")));
     }
+
+    @GetMapping("/{groupId}/messages/scroll")
+    public CursorPage<Message> scrollGroupMessages(@PathVariable Long groupId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int size,
+                                                   Principal principal) {
+        Long userId = Long.valueOf(principal.getName());
+        if (!groupService.isMember(groupId, userId)) {
+            throw new SecurityException("Not a member of this group");
+        }
+        if (cursor == null) {
+            // Opening the group at its latest page counts as reading it
+            unreadCounters.resetGroup(userId, groupId);
+        }
+        return historyService.group(groupId, cursor, size);
+    }
 }
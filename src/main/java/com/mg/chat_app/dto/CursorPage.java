@@ -0,0 +1,17 @@
+package com.mg.chat_app.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * One slice of a keyset-paginated list. Cursors are opaque; null means there is nothing further.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private String prevCursor;
+}
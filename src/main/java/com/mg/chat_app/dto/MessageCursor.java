@@ -0,0 +1,50 @@
+package com.mg.chat_app.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.mg.chat_app.entity.Message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Keyset position in a message timeline: (created_at, message_id) plus the scroll direction.
+ * Encoded as URL-safe base64 so clients treat it as opaque.
+ */
+@Getter
+@AllArgsConstructor
+public class MessageCursor {
+
+    public enum Direction { OLDER, NEWER }
+
+    private Direction direction;
+    private LocalDateTime createdAt;
+    private Long messageId;
+
+    public static MessageCursor olderThan(Message m) {
+        return new MessageCursor(Direction.OLDER, m.getCreatedAt(), m.getMessageId());
+    }
+
+    public static MessageCursor newerThan(Message m) {
+        return new MessageCursor(Direction.NEWER, m.getCreatedAt(), m.getMessageId());
+    }
+
+    public String encode() {
+        String raw = direction.name().charAt(0) + "|" + createdAt + "|" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            Direction direction = "N".equals(parts[0]) ? Direction.NEWER : Direction.OLDER;
+            return new MessageCursor(direction, LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -12,5 +12,11 @@ public class ReadReceiptDto {
     private Long senderId;
     private Long receiverId;
     private String status;   // e.g. "READ"
-}
+    // Range receipts cover every message in (fromMessageId, toMessageId]; null for single receipts
+    private Long fromMessageId;
+    private Long toMessageId;
 
+    public ReadReceiptDto(Long messageId, Long senderId, Long receiverId, String status) {
+        this(messageId, senderId, receiverId, status, null, null);
+    }
+}
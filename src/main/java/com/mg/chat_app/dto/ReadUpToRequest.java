@@ -0,0 +1,11 @@
+package com.mg.chat_app.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ReadUpToRequest {
+    private Long otherUserId;     // the sender whose messages are being read
+    private Long upToMessageId;   // newest message seen, inclusive
+}
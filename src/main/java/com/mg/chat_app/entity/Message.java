@@ -11,9 +11,8 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,7 +21,11 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_conversation", columnList = "sender_id, receiver_id, created_at, message_id"),
+        @Index(name = "idx_messages_group", columnList = "group_id, created_at, message_id"),
+        @Index(name = "idx_messages_receiver_status", columnList = "receiver_id, status, message_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,7 +34,7 @@ import lombok.Setter;
 public class Message {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     @Column(name = "message_id")
     private Long messageId;
 
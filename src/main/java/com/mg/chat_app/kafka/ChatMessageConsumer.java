@@ -1,38 +1,76 @@
 package com.mg.chat_app.kafka;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import com.mg.chat_app.config.KafkaConfig;
 import com.mg.chat_app.dto.ChatMessageDto;
-import com.mg.chat_app.entity.Message;
 import com.mg.chat_app.model.MessageStatus;
 import com.mg.chat_app.repository.MessageRepository;
-import com.mg.chat_app.service.RedisMessageBridge;
+import com.mg.chat_app.service.ChatService;
+import com.mg.chat_app.service.DeliveredMarkers;
+import com.mg.chat_app.service.MessageDeliveryService;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
-@RequiredArgsConstructor
 public class ChatMessageConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(ChatMessageConsumer.class);
     private final MessageRepository messageRepository;
-    private final RedisMessageBridge redisMessageBridge;
-
-    @KafkaListener(topics = "chat-messages", groupId = "chat-group")
-    public void consume(ChatMessageDto dto) {
-        log.info("Consuming message for receiverId={}, messageId={}", dto.getReceiverId(), dto.getMessageId());
+    private final MessageDeliveryService deliveryService;
+    private final DeliveredMarkers deliveredMarkers;
+    private final boolean kafkaFirst;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
 
-        // Publish to Redis for cross-node delivery
-        redisMessageBridge.publishToUser(dto.getReceiverId(), dto);
+    public ChatMessageConsumer(MessageRepository messageRepository,
+                               MessageDeliveryService deliveryService,
+                               DeliveredMarkers deliveredMarkers,
+                               MeterRegistry meterRegistry,
+                               @Value("${chat.messages.write-mode:sync}") String writeMode) {
+        this.messageRepository = messageRepository;
+        this.deliveryService = deliveryService;
+        this.deliveredMarkers = deliveredMarkers;
+        this.kafkaFirst = ChatService.KAFKA_FIRST.equals(writeMode);
+        this.batchTimer = Timer.builder("chat.consumer.batch.latency")
+                .description("Time to deliver and mark one chat-messages batch")
+                .tag("topic", "chat-messages")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("chat.consumer.batch.size")
+                .description("Records per chat-messages batch")
+                .tag("topic", "chat-messages")
+                .register(meterRegistry);
+    }
 
-        // Update DB status
-        Message msg = messageRepository.findById(dto.getMessageId()).orElse(null);
-        if (msg != null) {
-            msg.setStatus(MessageStatus.DELIVERED);
-            messageRepository.save(msg);
+    @KafkaListener(topics = "chat-messages", groupId = "chat-group",
+            containerFactory = KafkaConfig.BATCH_LISTENER_FACTORY)
+    public void consume(List<ChatMessageDto> batch) {
+        if (batch.isEmpty()) {
+            return;
         }
+        log.debug("Consuming batch of {} message(s)", batch.size());
+
+        batchTimer.record(() -> {
+            // Deliver locally or through the owning nodes' Redis inboxes in one pipeline
+            deliveryService.deliverAll(batch);
+
+            // One set-based status update for the whole batch. In kafka-first mode the rows may not
+            // be inserted yet, so the markers go first and the persistence consumer applies them
+            List<Long> ids = batch.stream().map(ChatMessageDto::getMessageId).toList();
+            if (kafkaFirst) {
+                deliveredMarkers.markDelivered(ids);
+            }
+            messageRepository.updateStatus(ids, MessageStatus.SENT, MessageStatus.DELIVERED);
+        });
+        batchSize.record(batch.size());
     }
 }
@@ -0,0 +1,17 @@
+package com.mg.chat_app.kafka;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.service.ChatMessageCodec;
+
+/*
+ * Reads both ChatMessageCodec binary and the JSON records produced before it.
+ */
+public class ChatMessageDeserializer implements Deserializer<ChatMessageDto> {
+
+    @Override
+    public ChatMessageDto deserialize(String topic, byte[] data) {
+        return data == null ? null : ChatMessageCodec.decode(data);
+    }
+}
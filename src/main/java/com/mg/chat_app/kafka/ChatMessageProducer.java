@@ -1,26 +1,54 @@
 package com.mg.chat_app.kafka;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.entity.OutboxEvent;
+import com.mg.chat_app.repository.OutboxRepository;
 
 import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.json.JsonMapper;
 
 @Service
 @RequiredArgsConstructor
 public class ChatMessageProducer {
 
     private final KafkaTemplate<String, ChatMessageDto> kafkaTemplate;
+    private final OutboxRepository outboxRepository;
+    private final JsonMapper jsonMapper;
+
+    public static final String TOPIC = "chat-messages";
+    public static final String GROUP_TOPIC = "chat-group-messages";
+
+    public CompletableFuture<SendResult<String, ChatMessageDto>> publish(ChatMessageDto dto) {
+        return kafkaTemplate.send(TOPIC, dto.getReceiverId().toString(), dto);
+    }
 
-    private static final String TOPIC = "chat-messages";
-    private static final String GROUP_TOPIC = "chat-group-messages";
+    public CompletableFuture<SendResult<String, ChatMessageDto>> publishGroupMessage(ChatMessageDto dto) {
+        return kafkaTemplate.send(GROUP_TOPIC, dto.getGroupId().toString(), dto);
+    }
+
+    /*
+     * Outbox variants: must run inside the transaction that saves the message.
+     * OutboxRelay publishes the rows after commit.
+     */
+    public void enqueue(ChatMessageDto dto) {
+        saveOutbox(TOPIC, dto.getReceiverId().toString(), dto);
+    }
 
-    public void publish(ChatMessageDto dto) {
-        kafkaTemplate.send(TOPIC, dto.getReceiverId().toString(), dto);
+    public void enqueueGroupMessage(ChatMessageDto dto) {
+        saveOutbox(GROUP_TOPIC, dto.getGroupId().toString(), dto);
     }
 
-    public void publishGroupMessage(ChatMessageDto dto) {
-        kafkaTemplate.send(GROUP_TOPIC, dto.getGroupId().toString(), dto);
+    private void saveOutbox(String topic, String key, ChatMessageDto dto) {
+        outboxRepository.save(OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payload(jsonMapper.writeValueAsString(dto))
+                .build());
     }
 }
@@ -0,0 +1,51 @@
+package com.mg.chat_app.kafka;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.service.ChatMessageCodec;
+
+/*
+ * Kafka value serializer for chat topics. Writes Spring's JSON (with type headers)
+ * unless chat.codec.write-format=binary is in the producer properties, so consumers
+ * still on JsonDeserializer keep working until every node reads both formats.
+ */
+public class ChatMessageSerializer implements Serializer<ChatMessageDto> {
+
+    public static final String WRITE_FORMAT_CONFIG = "chat.codec.write-format";
+
+    private final JsonSerializer<ChatMessageDto> json = new JsonSerializer<>();
+    private boolean writeJson;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(WRITE_FORMAT_CONFIG);
+        writeJson = format == null || !"binary".equalsIgnoreCase(format.toString());
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, ChatMessageDto data) {
+        if (data == null) {
+            return null;
+        }
+        return writeJson ? json.serialize(topic, data) : ChatMessageCodec.encode(data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, ChatMessageDto data) {
+        if (data == null) {
+            return null;
+        }
+        return writeJson ? json.serialize(topic, headers, data) : ChatMessageCodec.encode(data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
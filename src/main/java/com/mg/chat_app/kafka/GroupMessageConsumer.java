@@ -9,7 +9,8 @@ import org.springframework.stereotype.Service;
 
 import com.mg.chat_app.dto.ChatMessageDto;
 import com.mg.chat_app.service.GroupService;
-import com.mg.chat_app.service.RedisMessageBridge;
+import com.mg.chat_app.service.MessageDeliveryService;
+import com.mg.chat_app.service.UnreadCounterService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -19,21 +20,17 @@ public class GroupMessageConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(GroupMessageConsumer.class);
     private final GroupService groupService;
-    private final RedisMessageBridge redisMessageBridge;
+    private final MessageDeliveryService deliveryService;
+    private final UnreadCounterService unreadCounters;
 
     @KafkaListener(topics = "chat-group-messages", groupId = "chat-group")
     public void consume(ChatMessageDto dto) {
         Long groupId = dto.getGroupId();
         log.info("Consuming group message for groupId={}, messageId={}", groupId, dto.getMessageId());
 
+        // One publish per node hosting members, payload serialized once
         List<Long> memberIds = groupService.getGroupMemberIds(groupId);
-        for (Long memberId : memberIds) {
-            if (!memberId.equals(dto.getSenderId())) {
-                redisMessageBridge.publishToUser(memberId, dto);
-            }
-        }
-
-        // Also broadcast to the group topic via Redis
-        redisMessageBridge.publishToGroup(groupId, dto);
+        deliveryService.deliverToGroup(dto, memberIds);
+        unreadCounters.incrementGroup(groupId, memberIds, dto.getSenderId());
     }
 }
@@ -0,0 +1,136 @@
+package com.mg.chat_app.kafka;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.mg.chat_app.config.KafkaConfig;
+import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.model.MessageStatus;
+import com.mg.chat_app.model.MessageType;
+import com.mg.chat_app.repository.MessageRepository;
+import com.mg.chat_app.service.ChatService;
+import com.mg.chat_app.service.DeliveredMarkers;
+import com.mg.chat_app.service.ReadWatermarkService;
+import com.mg.chat_app.service.ReadWatermarkService.Conversation;
+import com.mg.chat_app.service.Snowflake;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Persists kafka-first sends. Runs in its own consumer group, in parallel with
+ * delivery, and writes each poll as multi-row INSERTs. Inserts are idempotent on
+ * message_id, so a redelivered batch after a failure is harmless.
+ *
+ * Delivery and reads can reach a message before its row exists. Both record their
+ * outcome in Redis before touching MySQL (DeliveredMarkers, read watermarks), and
+ * after each insert commits the consumer applies whatever was recorded. Whichever
+ * side runs second updates the row, so nothing stays SENT and /offline never
+ * returns a message twice.
+ */
+@Service
+@ConditionalOnProperty(name = "chat.messages.write-mode", havingValue = ChatService.KAFKA_FIRST)
+public class MessagePersistenceConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagePersistenceConsumer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageRepository messageRepository;
+    private final DeliveredMarkers deliveredMarkers;
+    private final ReadWatermarkService readWatermarks;
+    private final int insertBatchSize;
+    private final DistributionSummary batchSize;
+
+    public MessagePersistenceConsumer(JdbcTemplate jdbcTemplate,
+                                      MessageRepository messageRepository,
+                                      DeliveredMarkers deliveredMarkers,
+                                      ReadWatermarkService readWatermarks,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${chat.messages.insert-batch-size:500}") int insertBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageRepository = messageRepository;
+        this.deliveredMarkers = deliveredMarkers;
+        this.readWatermarks = readWatermarks;
+        this.insertBatchSize = insertBatchSize;
+        this.batchSize = DistributionSummary.builder("chat.persistence.batch.size")
+                .description("Messages per persistence insert batch")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = { ChatMessageProducer.TOPIC, ChatMessageProducer.GROUP_TOPIC },
+            groupId = "chat-persistence", containerFactory = KafkaConfig.BATCH_LISTENER_FACTORY)
+    public void persist(List<ChatMessageDto> batch) {
+        for (int from = 0; from < batch.size(); from += insertBatchSize) {
+            List<ChatMessageDto> rows = batch.subList(from, Math.min(from + insertBatchSize, batch.size()));
+            insert(rows);
+            applyRecordedStatus(rows);
+        }
+        batchSize.record(batch.size());
+        log.debug("Persisted batch of {} message(s)", batch.size());
+    }
+
+    private void insert(List<ChatMessageDto> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO messages " +
+                "(message_id, sender_id, receiver_id, group_id, content, status, message_type, created_at) VALUES ");
+        List<Object> args = new ArrayList<>(rows.size() * 8);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?)");
+            ChatMessageDto dto = rows.get(i);
+            args.add(dto.getMessageId());
+            args.add(dto.getSenderId());
+            args.add(dto.getReceiverId());
+            args.add(dto.getGroupId());
+            args.add(dto.getContent());
+            args.add(MessageStatus.SENT.name());
+            args.add((dto.getGroupId() != null ? MessageType.GROUP : MessageType.DIRECT).name());
+            // The Snowflake id carries the send time
+            args.add(new Timestamp(Snowflake.timestampMillis(dto.getMessageId())));
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE message_id = message_id");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /*
+     * Runs after the insert has committed: delivered markers move rows to DELIVERED,
+     * read watermarks at or past a row move it to READ.
+     */
+    private void applyRecordedStatus(List<ChatMessageDto> rows) {
+        List<Long> directIds = new ArrayList<>(rows.size());
+        Map<Conversation, Long> lowestIds = new HashMap<>();
+        for (ChatMessageDto dto : rows) {
+            if (dto.getGroupId() == null) {
+                directIds.add(dto.getMessageId());
+                lowestIds.merge(new Conversation(dto.getReceiverId(), dto.getSenderId()), dto.getMessageId(), Math::min);
+            }
+        }
+        if (directIds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> delivered = deliveredMarkers.delivered(directIds);
+        if (!delivered.isEmpty()) {
+            messageRepository.updateStatus(delivered, MessageStatus.SENT, MessageStatus.DELIVERED);
+        }
+
+        readWatermarks.watermarks(lowestIds.keySet()).forEach((conversation, watermark) -> {
+            if (watermark >= lowestIds.get(conversation)) {
+                readWatermarks.applyWatermark(conversation.readerId(), conversation.senderId(), watermark);
+            }
+        });
+    }
+}
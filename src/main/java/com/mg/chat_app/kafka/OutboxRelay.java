@@ -0,0 +1,169 @@
+package com.mg.chat_app.kafka;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+import com.mg.chat_app.entity.OutboxEvent;
+import com.mg.chat_app.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tools.jackson.databind.json.JsonMapper;
+
+/*
+ * Publishes message_outbox rows to Kafka. Each pass claims a batch in a short
+ * transaction (SKIP LOCKED plus a leased_until lease), sends every record without
+ * waiting, waits for the acks outside any transaction, then deletes the acknowledged
+ * rows and releases the rest in a second one. Unacknowledged rows, or rows of a
+ * relay that died mid-batch once their lease expires, go out on a later pass, so
+ * delivery to Kafka is at-least-once.
+ *
+ * Runs on its own thread: a slow broker stalls only the relay, not the shared
+ * @Scheduled jobs.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaTemplate<String, ChatMessageDto> kafkaTemplate;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long leaseMs;
+    private final long pollIntervalMs;
+    private final Counter published;
+    private final Counter failed;
+    private ScheduledExecutorService scheduler;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       KafkaTemplate<String, ChatMessageDto> kafkaTemplate,
+                       JsonMapper jsonMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${chat.outbox.batch-size:500}") int batchSize,
+                       @Value("${chat.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${chat.outbox.lease-ms:30000}") long leaseMs,
+                       @Value("${chat.outbox.poll-interval-ms:100}") long pollIntervalMs) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.jsonMapper = jsonMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        // A lease shorter than the ack wait would let another relay send the same rows meanwhile
+        this.leaseMs = Math.max(leaseMs, sendTimeoutMs * 2);
+        this.pollIntervalMs = pollIntervalMs;
+        this.published = Counter.builder("chat.outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("chat.outbox.failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::relay, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        if (!scheduler.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS)) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void relay() {
+        try {
+            boolean full;
+            do {
+                full = relayBatch();
+            } while (full && !scheduler.isShutdown());
+        } catch (RuntimeException e) {
+            log.error("Outbox relay pass failed", e);
+        }
+    }
+
+    /*
+     * Returns true when a full batch went out cleanly and more rows may be waiting.
+     */
+    private boolean relayBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status -> claim());
+        if (events == null || events.isEmpty()) {
+            return false;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ChatMessageDto dto = jsonMapper.readValue(event.getPayload(), ChatMessageDto.class);
+            sends.add(kafkaTemplate.send(event.getTopic(), event.getMessageKey(), dto));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> acked = new ArrayList<>(events.size());
+        List<Long> unacked = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acked.add(events.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Left leased; another pass picks them up once the lease expires
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                unacked.add(events.get(i).getId());
+                log.warn("Outbox event {} not acknowledged, will retry: {}", events.get(i).getId(), e.getMessage());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!acked.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(acked);
+            }
+            if (!unacked.isEmpty()) {
+                outboxRepository.lease(unacked, null);
+            }
+        });
+        published.increment(acked.size());
+        failed.increment(events.size() - acked.size());
+        log.debug("Relayed {} of {} outbox event(s)", acked.size(), events.size());
+        return acked.size() == batchSize;
+    }
+
+    /*
+     * Locks unleased rows only for as long as it takes to lease them.
+     */
+    private List<OutboxEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = outboxRepository.lockBatch(now, batchSize);
+        if (!events.isEmpty()) {
+            outboxRepository.lease(events.stream().map(OutboxEvent::getId).toList(),
+                    now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs)));
+        }
+        return events;
+    }
+}
@@ -1,8 +1,17 @@
 package com.mg.chat_app.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.mg.chat_app.entity.ChatGroup;
 
 public interface ChatGroupRepository extends JpaRepository<ChatGroup, Long> {
+
+    @Query("SELECT g FROM ChatGroup g WHERE g.groupId IN " +
+           "(SELECT m.groupId FROM GroupMember m WHERE m.userId = :userId) " +
+           "ORDER BY g.groupId")
+    List<ChatGroup> findGroupsForUser(@Param("userId") Long userId);
 }
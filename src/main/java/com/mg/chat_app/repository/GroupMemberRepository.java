@@ -1,8 +1,11 @@
 package com.mg.chat_app.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.mg.chat_app.entity.GroupMember;
 
@@ -15,4 +18,11 @@ public interface GroupMemberRepository extends JpaRepository<GroupMember, Long>
     boolean existsByGroupIdAndUserId(Long groupId, Long userId);
 
     void deleteByGroupIdAndUserId(Long groupId, Long userId);
+
+    // Rows of [groupId, userId, role, username]; username is null for deleted users
+    @Query("SELECT m.groupId, m.userId, m.role, u.username FROM GroupMember m " +
+           "LEFT JOIN User u ON u.userId = m.userId " +
+           "WHERE m.groupId IN :groupIds " +
+           "ORDER BY m.groupId, m.id")
+    List<Object[]> findMemberRowsByGroupIds(@Param("groupIds") Collection<Long> groupIds);
 }
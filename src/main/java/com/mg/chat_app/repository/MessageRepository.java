@@ -1,12 +1,17 @@
 package com.mg.chat_app.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.mg.chat_app.entity.Message;
 import com.mg.chat_app.model.MessageStatus;
@@ -16,6 +21,9 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByReceiverIdAndStatus(Long receiverId, MessageStatus status);
 
     List<Message> findBySenderId(Long senderId);
+
+    List<Message> findByReceiverIdAndStatusAndMessageIdGreaterThanOrderByMessageIdAsc(
+            Long receiverId, MessageStatus status, Long messageId, Limit limit);
     //paginated queries: findByReceiverIdAndStatus, findConversation, findByGroupIdOrderByCreatedAtDesc
     Page<Message> findByReceiverIdAndStatus(Long receiverId, MessageStatus status, Pageable pageable);
 
@@ -30,9 +38,62 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     //paginated queries: findByReceiverIdAndStatus, findConversation, findByGroupIdOrderByCreatedAtDesc
     Page<Message> findByGroupIdOrderByCreatedAtDesc(Long groupId, Pageable pageable);
 
+    // keyset queries: seek on (createdAt, messageId) instead of OFFSET, no COUNT(*).
+    // Direct history is one seek per sender on idx_messages_conversation, merged by the caller;
+    // an OR over both directions cannot walk that index in order and filesorts.
+    @Query("SELECT m FROM Message m WHERE m.senderId = :senderId AND m.receiverId = :receiverId " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.messageId < :messageId)) " +
+           "ORDER BY m.createdAt DESC, m.messageId DESC")
+    List<Message> findDirectBefore(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("messageId") Long messageId, Limit limit);
+
+    @Query("SELECT m FROM Message m WHERE m.senderId = :senderId AND m.receiverId = :receiverId " +
+           "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.messageId > :messageId)) " +
+           "ORDER BY m.createdAt ASC, m.messageId ASC")
+    List<Message> findDirectAfter(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("messageId") Long messageId, Limit limit);
+
+    @Query("SELECT m FROM Message m WHERE m.groupId = :groupId " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.messageId < :messageId)) " +
+           "ORDER BY m.createdAt DESC, m.messageId DESC")
+    List<Message> findGroupMessagesBefore(@Param("groupId") Long groupId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("messageId") Long messageId, Limit limit);
+
+    @Query("SELECT m FROM Message m WHERE m.groupId = :groupId " +
+           "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.messageId > :messageId)) " +
+           "ORDER BY m.createdAt ASC, m.messageId ASC")
+    List<Message> findGroupMessagesAfter(@Param("groupId") Long groupId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("messageId") Long messageId, Limit limit);
+
     @Query("SELECT m.senderId, COUNT(m) FROM Message m " +
            "WHERE m.receiverId = :receiverId AND m.status IN :statuses " +
            "GROUP BY m.senderId")
     List<Object[]> countUnreadBySender(@Param("receiverId") Long receiverId,
                                        @Param("statuses") List<MessageStatus> statuses);
+
+    @Query("SELECT m.receiverId, m.senderId, COUNT(m) FROM Message m " +
+           "WHERE m.receiverId IN :receiverIds AND m.status IN :statuses " +
+           "GROUP BY m.receiverId, m.senderId")
+    List<Object[]> countUnreadByReceiverAndSender(@Param("receiverIds") Collection<Long> receiverIds,
+                                                  @Param("statuses") List<MessageStatus> statuses);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Message m SET m.status = :to WHERE m.messageId IN :ids AND m.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") MessageStatus from,
+                     @Param("to") MessageStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Message m SET m.status = com.mg.chat_app.model.MessageStatus.READ " +
+           "WHERE m.senderId = :senderId AND m.receiverId = :receiverId " +
+           "AND m.messageId <= :upToMessageId AND m.status <> com.mg.chat_app.model.MessageStatus.READ")
+    int markReadUpTo(@Param("senderId") Long senderId,
+                     @Param("receiverId") Long receiverId,
+                     @Param("upToMessageId") Long upToMessageId);
 }
@@ -0,0 +1,26 @@
+package com.mg.chat_app.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.mg.chat_app.entity.OutboxEvent;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Rows locked by another relay are skipped, so instances claim disjoint batches
+    @Query(value = "SELECT * FROM message_outbox WHERE leased_until IS NULL OR leased_until < :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> lockBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Null releases the rows for the next pass
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.leasedUntil = :until WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+}
@@ -1,13 +1,22 @@
 package com.mg.chat_app.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.mg.chat_app.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
+
+    List<User> findTop1000ByUserIdGreaterThanOrderByUserIdAsc(Long userId);
+
+    @Query("SELECT u.userId FROM User u WHERE u.userId > :after ORDER BY u.userId")
+    List<Long> findUserIdsAfter(@Param("after") Long after, Limit limit);
 }
 
@@ -0,0 +1,122 @@
+package com.mg.chat_app.security;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+
+/*
+ * Per-user token bucket split between Redis and the local node. The Redis bucket
+ * holds the real quota; each node borrows up to borrowBatch tokens at a time and
+ * spends them in-process, so most checks never leave the JVM. When Redis has
+ * nothing to lend, the user is refused locally until the bucket refills, and for at
+ * least denyBackoff, before asking again.
+ */
+public class HybridRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridRateLimiter.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ProxyManager<String> proxyManager;
+    private final String keyPrefix;
+    private final BucketConfiguration configuration;
+    private final long borrowBatch;
+    private final long denyBackoffNanos;
+    private final Cache<Long, LocalAllowance> allowances;
+
+    public HybridRateLimiter(ProxyManager<String> proxyManager, String name, long perMinute,
+                             long borrowBatch, Duration denyBackoff) {
+        this.proxyManager = proxyManager;
+        this.keyPrefix = "rate_limit:" + name + ":";
+        this.configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(perMinute)
+                        .refillGreedy(perMinute, Duration.ofMinutes(1))
+                        .build())
+                .build();
+        this.borrowBatch = Math.max(1, Math.min(borrowBatch, perMinute));
+        this.denyBackoffNanos = denyBackoff.toNanos();
+        // Unspent borrowed tokens of idle users are dropped, which only ever makes the limit stricter
+        this.allowances = Caffeine.newBuilder()
+                .expireAfterAccess(5, TimeUnit.MINUTES)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public boolean tryAcquire(Long userId) {
+        LocalAllowance allowance = allowances.get(userId, id -> new LocalAllowance());
+        // A lock rather than a monitor: the Redis call below would pin a virtual thread on Java 21
+        allowance.lock.lock();
+        try {
+            if (allowance.tokens > 0) {
+                allowance.tokens--;
+                return true;
+            }
+            long now = System.nanoTime();
+            if (now - allowance.deniedUntilNanos < 0) {
+                return false;
+            }
+            BucketProxy bucket = proxyManager.builder().build(keyPrefix + userId, () -> configuration);
+            long borrowed;
+            try {
+                borrowed = bucket.tryConsumeAsMuchAsPossible(borrowBatch);
+            } catch (RuntimeException e) {
+                // Limits protect the backend, they should not take messaging down with Redis
+                log.warn("Rate limit check for {}{} failed, allowing: {}", keyPrefix, userId, e.getMessage());
+                return true;
+            }
+            if (borrowed == 0) {
+                allowance.deniedUntilNanos = now + Math.max(denyBackoffNanos, refillWaitNanos(bucket, userId));
+                return false;
+            }
+            allowance.tokens = borrowed - 1;
+            return true;
+        } finally {
+            allowance.lock.unlock();
+        }
+    }
+
+    /*
+     * Seconds until this node will ask Redis for the user again, rounded up.
+     */
+    public long retryAfterSeconds(Long userId) {
+        LocalAllowance allowance = allowances.getIfPresent(userId);
+        if (allowance == null) {
+            return 1;
+        }
+        long remaining;
+        allowance.lock.lock();
+        try {
+            remaining = allowance.deniedUntilNanos - System.nanoTime();
+        } finally {
+            allowance.lock.unlock();
+        }
+        return Math.max(1, (remaining + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+
+    // Only asked after a refusal, so the extra round trip is paid once per backoff window
+    private long refillWaitNanos(BucketProxy bucket, Long userId) {
+        try {
+            return bucket.estimateAbilityToConsume(1).getNanosToWaitForRefill();
+        } catch (RuntimeException e) {
+            log.warn("Refill estimate for {}{} failed: {}", keyPrefix, userId, e.getMessage());
+            return denyBackoffNanos;
+        }
+    }
+
+    private static final class LocalAllowance {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long tokens;
+        private long deniedUntilNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mg.chat_app.security;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Per-user limit on the message send endpoints. Registered after the security
+ * chain, so the principal is the authenticated user id.
+ */
+public class MessageRateLimitFilter implements Filter {
+
+    private static final Pattern SEND_PATH = Pattern.compile("^/api/chat/send$|^/api/groups/\\d+/messages$");
+
+    private final HybridRateLimiter rateLimiter;
+
+    public MessageRateLimitFilter(HybridRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        Principal principal = httpRequest.getUserPrincipal();
+        if (!"POST".equalsIgnoreCase(httpRequest.getMethod())
+                || principal == null
+                || !SEND_PATH.matcher(httpRequest.getRequestURI()).matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Long userId = Long.valueOf(principal.getName());
+        if (rateLimiter.tryAcquire(userId)) {
+            chain.doFilter(request, response);
+        } else {
+            long waitSeconds = rateLimiter.retryAfterSeconds(userId);
+            httpResponse.setStatus(429);
+            httpResponse.setHeader("Retry-After", String.valueOf(waitSeconds));
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"error\":\"Too many messages. Retry after " + waitSeconds + " seconds.\"}");
+        }
+    }
+}
@@ -38,9 +38,11 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/ws/**").permitAll()
+                .requestMatchers("/ws-native").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/ws/info/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                // Probes only; /actuator/metrics exposes internals and needs a token
+                .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
                 .requestMatchers("/api/version").permitAll()
                 .requestMatchers(HttpMethod.GET, "/", "/index.html", "/chat.html", "/static/**").permitAll()
                 .anyRequest().authenticated()
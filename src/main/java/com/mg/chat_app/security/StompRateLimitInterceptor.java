@@ -0,0 +1,42 @@
+package com.mg.chat_app.security;
+
+import java.security.Principal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/*
+ * Per-user limit on STOMP SEND frames, shared by all of a user's sessions and nodes.
+ * Frames over the limit are dropped rather than failing the connection.
+ */
+@Component
+public class StompRateLimitInterceptor implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(StompRateLimitInterceptor.class);
+    private final HybridRateLimiter rateLimiter;
+
+    public StompRateLimitInterceptor(@Qualifier("stompRateLimiter") HybridRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (!StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+        Principal user = accessor.getUser();
+        if (user == null || rateLimiter.tryAcquire(Long.valueOf(user.getName()))) {
+            return message;
+        }
+        log.debug("Dropped STOMP SEND to {} from user {}: rate limited", accessor.getDestination(), user.getName());
+        return null;
+    }
+}
@@ -0,0 +1,159 @@
+package com.mg.chat_app.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mg.chat_app.dto.ChatMessageDto;
+
+/*
+ * Binary wire format for ChatMessageDto, used on Kafka and on node inboxes:
+ *   [version:1][presence flags:1][messageId][senderId][receiverId][groupId]: varints, present fields only
+ *   [content length:varint][content: UTF-8]
+ * decode() also accepts the JSON written by the previous serializers, so
+ * nodes on either format can run side by side during a rollout.
+ */
+public final class ChatMessageCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int HAS_MESSAGE_ID = 1;
+    private static final int HAS_SENDER_ID = 1 << 1;
+    private static final int HAS_RECEIVER_ID = 1 << 2;
+    private static final int HAS_GROUP_ID = 1 << 3;
+    private static final int HAS_CONTENT = 1 << 4;
+    private static final int KNOWN_FLAGS = HAS_MESSAGE_ID | HAS_SENDER_ID | HAS_RECEIVER_ID | HAS_GROUP_ID | HAS_CONTENT;
+
+    // Tolerates the "@class" property GenericJackson2JsonRedisSerializer adds
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private ChatMessageCodec() {
+    }
+
+    public static byte[] encode(ChatMessageDto dto) {
+        byte[] content = dto.getContent() != null ? dto.getContent().getBytes(StandardCharsets.UTF_8) : null;
+        int flags = (dto.getMessageId() != null ? HAS_MESSAGE_ID : 0)
+                | (dto.getSenderId() != null ? HAS_SENDER_ID : 0)
+                | (dto.getReceiverId() != null ? HAS_RECEIVER_ID : 0)
+                | (dto.getGroupId() != null ? HAS_GROUP_ID : 0)
+                | (content != null ? HAS_CONTENT : 0);
+
+        int size = 2 + sizeOf(dto.getMessageId()) + sizeOf(dto.getSenderId())
+                + sizeOf(dto.getReceiverId()) + sizeOf(dto.getGroupId());
+        if (content != null) {
+            size += varLongSize(content.length) + content.length;
+        }
+
+        byte[] out = new byte[size];
+        out[0] = VERSION;
+        out[1] = (byte) flags;
+        int pos = 2;
+        pos = writeIfPresent(out, pos, dto.getMessageId());
+        pos = writeIfPresent(out, pos, dto.getSenderId());
+        pos = writeIfPresent(out, pos, dto.getReceiverId());
+        pos = writeIfPresent(out, pos, dto.getGroupId());
+        if (content != null) {
+            pos = writeVarLong(out, pos, content.length);
+            System.arraycopy(content, 0, out, pos, content.length);
+        }
+        return out;
+    }
+
+    public static ChatMessageDto decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (isJson(bytes)) {
+            return decodeJson(bytes);
+        }
+        if (bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported chat message format version " + bytes[0]);
+        }
+        if (bytes.length < 2) {
+            throw new IllegalArgumentException("Truncated chat message");
+        }
+
+        // Fields are positional, so a field this version does not know would shift every later one
+        int flags = bytes[1];
+        if ((flags & ~KNOWN_FLAGS) != 0) {
+            throw new IllegalArgumentException("Unknown chat message fields " + Integer.toBinaryString(flags & 0xFF));
+        }
+        int[] pos = {2};
+        ChatMessageDto dto = new ChatMessageDto();
+        if ((flags & HAS_MESSAGE_ID) != 0) {
+            dto.setMessageId(readVarLong(bytes, pos));
+        }
+        if ((flags & HAS_SENDER_ID) != 0) {
+            dto.setSenderId(readVarLong(bytes, pos));
+        }
+        if ((flags & HAS_RECEIVER_ID) != 0) {
+            dto.setReceiverId(readVarLong(bytes, pos));
+        }
+        if ((flags & HAS_GROUP_ID) != 0) {
+            dto.setGroupId(readVarLong(bytes, pos));
+        }
+        if ((flags & HAS_CONTENT) != 0) {
+            long length = readVarLong(bytes, pos);
+            if (length < 0 || length > bytes.length - pos[0]) {
+                throw new IllegalArgumentException("Truncated chat message content");
+            }
+            dto.setContent(new String(bytes, pos[0], (int) length, StandardCharsets.UTF_8));
+        }
+        return dto;
+    }
+
+    public static boolean isJson(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == '{';
+    }
+
+    private static ChatMessageDto decodeJson(byte[] bytes) {
+        try {
+            return JSON.readValue(bytes, ChatMessageDto.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON chat message", e);
+        }
+    }
+
+    private static int sizeOf(Long value) {
+        return value != null ? varLongSize(value) : 0;
+    }
+
+    private static int writeIfPresent(byte[] out, int pos, Long value) {
+        return value != null ? writeVarLong(out, pos, value) : pos;
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarLong(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarLong(byte[] buf, int[] pos) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= buf.length) {
+                throw new IllegalArgumentException("Truncated chat message");
+            }
+            byte b = buf[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in chat message");
+    }
+}
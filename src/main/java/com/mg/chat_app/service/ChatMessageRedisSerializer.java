@@ -0,0 +1,38 @@
+package com.mg.chat_app.service;
+
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+
+/*
+ * Payload serializer for node inbox deliveries. Binary by default; in json mode
+ * it writes what GenericJackson2JsonRedisSerializer wrote, for nodes not yet upgraded.
+ */
+public class ChatMessageRedisSerializer implements RedisSerializer<ChatMessageDto> {
+
+    private final boolean writeJson;
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    public ChatMessageRedisSerializer(boolean writeJson) {
+        this.writeJson = writeJson;
+    }
+
+    @Override
+    public byte[] serialize(ChatMessageDto value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        return writeJson ? json.serialize(value) : ChatMessageCodec.encode(value);
+    }
+
+    @Override
+    public ChatMessageDto deserialize(byte[] bytes) throws SerializationException {
+        try {
+            return ChatMessageCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot read chat message", e);
+        }
+    }
+}
@@ -1,37 +1,131 @@
 package com.mg.chat_app.service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.mg.chat_app.dto.ChatMessageDto;
 import com.mg.chat_app.entity.Message;
 import com.mg.chat_app.kafka.ChatMessageProducer;
 import com.mg.chat_app.model.MessageStatus;
+import com.mg.chat_app.model.MessageType;
 import com.mg.chat_app.repository.MessageRepository;
 
-import lombok.RequiredArgsConstructor;
-
+/*
+ * Send path for direct and group messages. In "sync" write mode the message and
+ * its outbox row are saved in one transaction and OutboxRelay publishes them.
+ * In "kafka-first" mode the id comes from the Snowflake generator, the send is
+ * acknowledged once Kafka has the record, and MessagePersistenceConsumer writes
+ * it to MySQL in batches.
+ */
 @Service
-@RequiredArgsConstructor
 public class ChatService {
 
+    public static final String KAFKA_FIRST = "kafka-first";
+
     private final MessageRepository messageRepository;
     private final ChatMessageProducer producer;
     private final InputSanitizer inputSanitizer;
+    private final RosterService rosterService;
+    private final UnreadCounterService unreadCounters;
+    private final Snowflake snowflake;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean kafkaFirst;
+    private final long sendTimeoutMs;
+
+    public ChatService(MessageRepository messageRepository,
+                       ChatMessageProducer producer,
+                       InputSanitizer inputSanitizer,
+                       RosterService rosterService,
+                       UnreadCounterService unreadCounters,
+                       Snowflake snowflake,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${chat.messages.write-mode:sync}") String writeMode,
+                       @Value("${chat.messages.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.messageRepository = messageRepository;
+        this.producer = producer;
+        this.inputSanitizer = inputSanitizer;
+        this.rosterService = rosterService;
+        this.unreadCounters = unreadCounters;
+        this.snowflake = snowflake;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.kafkaFirst = KAFKA_FIRST.equalsIgnoreCase(writeMode);
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
 
-    @Transactional
     public ChatMessageDto sendMessage(Message message) {
         message.setContent(inputSanitizer.sanitize(message.getContent()));
-        message.setStatus(MessageStatus.SENT);
-        Message saved = messageRepository.save(message);
 
-        ChatMessageDto dto = new ChatMessageDto(
-                saved.getMessageId(),
-                saved.getSenderId(),
-                saved.getReceiverId(),
-                saved.getContent());
+        ChatMessageDto dto;
+        if (kafkaFirst) {
+            dto = new ChatMessageDto(snowflake.nextId(), message.getSenderId(), message.getReceiverId(),
+                    message.getContent());
+            awaitAck(producer.publish(dto));
+        } else {
+            message.setStatus(MessageStatus.SENT);
+            dto = transactionTemplate.execute(status -> {
+                Message saved = messageRepository.save(message);
+                ChatMessageDto saveDto = new ChatMessageDto(
+                        saved.getMessageId(),
+                        saved.getSenderId(),
+                        saved.getReceiverId(),
+                        saved.getContent());
+                producer.enqueue(saveDto);
+                return saveDto;
+            });
+        }
 
-        producer.publish(dto);
+        rosterService.addContacts(dto.getSenderId(), dto.getReceiverId());
+        unreadCounters.incrementDirect(dto.getReceiverId(), dto.getSenderId());
         return dto;
     }
+
+    /*
+     * Membership is checked by the caller.
+     */
+    public ChatMessageDto sendGroupMessage(Long groupId, Long senderId, String content) {
+        String sanitized = inputSanitizer.sanitize(content);
+
+        if (kafkaFirst) {
+            ChatMessageDto dto = new ChatMessageDto(snowflake.nextId(), senderId, null, sanitized, groupId);
+            awaitAck(producer.publishGroupMessage(dto));
+            return dto;
+        }
+
+        Message msg = Message.builder()
+                .senderId(senderId)
+                .content(sanitized)
+                .groupId(groupId)
+                .messageType(MessageType.GROUP)
+                .status(MessageStatus.SENT)
+                .build();
+        return transactionTemplate.execute(status -> {
+            Message saved = messageRepository.save(msg);
+            ChatMessageDto dto = new ChatMessageDto(
+                    saved.getMessageId(), saved.getSenderId(), null, saved.getContent(), groupId);
+            producer.enqueueGroupMessage(dto);
+            return dto;
+        });
+    }
+
+    /*
+     * In kafka-first mode the broker is the only copy until the persistence
+     * consumer runs, so the send is not acknowledged before Kafka has it.
+     */
+    private void awaitAck(CompletableFuture<?> send) {
+        try {
+            send.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending message", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Message could not be queued for delivery", e);
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.mg.chat_app.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/*
+ * Short-lived msg:delivered:{id} markers for kafka-first mode, where delivery can
+ * run before MessagePersistenceConsumer has inserted the row. The delivery consumer
+ * writes the markers before its SENT -> DELIVERED update; the persistence consumer
+ * reads them after its insert commits. Whichever side runs second moves the row.
+ */
+@Service
+public class DeliveredMarkers {
+
+    private static final String PREFIX = "msg:delivered:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long ttlSeconds;
+
+    public DeliveredMarkers(StringRedisTemplate stringRedisTemplate,
+                            @Value("${chat.messages.delivered-marker-ttl:1h}") Duration ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttlSeconds = Math.max(1, ttl.toSeconds());
+    }
+
+    public void markDelivered(Collection<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Long id : messageIds) {
+                redis.setEx(PREFIX + id, ttlSeconds, "1");
+            }
+            return null;
+        });
+    }
+
+    /*
+     * The subset of messageIds that have been delivered, in one MGET.
+     */
+    public Set<Long> delivered(List<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return Set.of();
+        }
+        List<String> values = stringRedisTemplate.opsForValue()
+                .multiGet(messageIds.stream().map(id -> PREFIX + id).toList());
+        Set<Long> delivered = new HashSet<>();
+        for (int i = 0; values != null && i < messageIds.size(); i++) {
+            if (values.get(i) != null) {
+                delivered.add(messageIds.get(i));
+            }
+        }
+        return delivered;
+    }
+}
@@ -0,0 +1,83 @@
+package com.mg.chat_app.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+/*
+ * Wire format of a node inbox message:
+ *   [version:1][recipientCount:varint][recipientId:varint]...[payload...]
+ * The payload is the already-serialized message, so a fan-out serializes it once
+ * and only the short recipient header differs between nodes.
+ */
+public final class DeliveryFrame {
+
+    private static final byte VERSION = 1;
+
+    private final long[] recipientIds;
+    private final byte[] payload;
+
+    private DeliveryFrame(long[] recipientIds, byte[] payload) {
+        this.recipientIds = recipientIds;
+        this.payload = payload;
+    }
+
+    public long[] recipientIds() {
+        return recipientIds;
+    }
+
+    public byte[] payload() {
+        return payload;
+    }
+
+    public static byte[] encode(Collection<Long> recipientIds, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 1 + 5 * (recipientIds.size() + 1));
+        out.write(VERSION);
+        writeVarLong(out, recipientIds.size());
+        for (Long id : recipientIds) {
+            writeVarLong(out, id);
+        }
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    public static DeliveryFrame decode(byte[] frame) {
+        if (frame.length == 0 || frame[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported delivery frame version");
+        }
+        int[] pos = {1};
+        long count = readVarLong(frame, pos);
+        // Each id takes at least one byte, which bounds the allocation below
+        if (count < 0 || count > frame.length - pos[0]) {
+            throw new IllegalArgumentException("Truncated delivery frame");
+        }
+        long[] recipients = new long[(int) count];
+        for (int i = 0; i < count; i++) {
+            recipients[i] = readVarLong(frame, pos);
+        }
+        return new DeliveryFrame(recipients, Arrays.copyOfRange(frame, pos[0], frame.length));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] buf, int[] pos) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= buf.length) {
+                throw new IllegalArgumentException("Truncated delivery frame");
+            }
+            byte b = buf[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in delivery frame");
+    }
+}
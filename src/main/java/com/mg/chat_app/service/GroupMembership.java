@@ -0,0 +1,64 @@
+package com.mg.chat_app.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.mg.chat_app.entity.GroupMember;
+import com.mg.chat_app.model.GroupRole;
+
+/*
+ * Immutable snapshot of a group's members held as sorted primitive arrays,
+ * so membership checks are a binary search with no boxing.
+ */
+public final class GroupMembership {
+
+    private final long[] memberIds;
+    private final long[] adminIds;
+
+    private GroupMembership(long[] memberIds, long[] adminIds) {
+        this.memberIds = memberIds;
+        this.adminIds = adminIds;
+    }
+
+    public static GroupMembership of(List<GroupMember> members) {
+        long[] all = members.stream().mapToLong(GroupMember::getUserId).sorted().toArray();
+        long[] admins = members.stream()
+                .filter(m -> m.getRole() == GroupRole.ADMIN)
+                .mapToLong(GroupMember::getUserId)
+                .sorted()
+                .toArray();
+        return new GroupMembership(all, admins);
+    }
+
+    public static GroupMembership of(long[] memberIds, long[] adminIds) {
+        long[] all = memberIds.clone();
+        long[] admins = adminIds.clone();
+        Arrays.sort(all);
+        Arrays.sort(admins);
+        return new GroupMembership(all, admins);
+    }
+
+    public boolean isMember(long userId) {
+        return Arrays.binarySearch(memberIds, userId) >= 0;
+    }
+
+    public boolean isAdmin(long userId) {
+        return Arrays.binarySearch(adminIds, userId) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return memberIds.length == 0;
+    }
+
+    public List<Long> memberIds() {
+        return Arrays.stream(memberIds).boxed().toList();
+    }
+
+    long[] rawMemberIds() {
+        return memberIds;
+    }
+
+    long[] rawAdminIds() {
+        return adminIds;
+    }
+}
@@ -0,0 +1,188 @@
+package com.mg.chat_app.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mg.chat_app.model.GroupRole;
+import com.mg.chat_app.repository.GroupMemberRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Two-level cache of group membership: a Caffeine map per node in front of a
+ * Redis hash (group:members:v2:{groupId} -> userId:role), with MySQL as the source.
+ * Membership changes invalidate every node through the chat:group-membership channel.
+ *
+ * A loader can read MySQL just before a removal commits and try to write the old
+ * membership back after the invalidation deleted it. Invalidation therefore bumps
+ * group:members:gen:{groupId}. Loaders read the generation before MySQL, and their
+ * write is a script that does nothing once it has moved.
+ */
+@Component
+public class GroupMembershipCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupMembershipCache.class);
+    private static final String KEY_PREFIX = "group:members:v2:";
+    private static final String GENERATION_PREFIX = "group:members:gen:";
+    private static final Duration GENERATION_TTL = Duration.ofDays(1);
+
+    // ARGV: expected generation ('' when unset), ttl ms, then userId/role pairs
+    static final RedisScript<Long> STORE = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    // Generation first, then the hash, in one step
+    static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>(
+            "local generation = redis.call('INCR', KEYS[2]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[1]) " +
+            "redis.call('DEL', KEYS[1]) " +
+            "return generation", Long.class);
+
+    private static final String INVALIDATION_CHANNEL = "chat:group-membership";
+
+    private final GroupMemberRepository memberRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Duration redisTtl;
+    private final Cache<Long, GroupMembership> localCache;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public GroupMembershipCache(GroupMemberRepository memberRepository,
+                                RedisTemplate<String, Object> redisTemplate,
+                                StringRedisTemplate stringRedisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.group-membership.local-max-size:100000}") long localMaxSize,
+                                @Value("${chat.group-membership.local-ttl:5m}") Duration localTtl,
+                                @Value("${chat.group-membership.redis-ttl:10m}") Duration redisTtl) {
+        this.memberRepository = memberRepository;
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.redisTtl = redisTtl;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "group-membership");
+        this.redisHits = Counter.builder("chat.group.membership.redis")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.redisMisses = Counter.builder("chat.group.membership.redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public GroupMembership get(Long groupId) {
+        return localCache.get(groupId, this::loadFromRedisOrDb);
+    }
+
+    /*
+     * Drops the cached membership on every node once the surrounding transaction commits.
+     */
+    public void invalidate(Long groupId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcastInvalidation(groupId);
+                }
+            });
+        } else {
+            broadcastInvalidation(groupId);
+        }
+    }
+
+    private void broadcastInvalidation(Long groupId) {
+        stringRedisTemplate.execute(INVALIDATE, List.of(KEY_PREFIX + groupId, GENERATION_PREFIX + groupId),
+                String.valueOf(GENERATION_TTL.toMillis()));
+        localCache.invalidate(groupId);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, groupId.toString());
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            localCache.invalidate(Long.valueOf(String.valueOf(body)));
+        } catch (Exception e) {
+            log.warn("Bad group membership invalidation, clearing local cache", e);
+            localCache.invalidateAll();
+        }
+    }
+
+    private GroupMembership loadFromRedisOrDb(Long groupId) {
+        String key = KEY_PREFIX + groupId;
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+        if (!entries.isEmpty()) {
+            redisHits.increment();
+            return fromRedis(entries);
+        }
+        redisMisses.increment();
+
+        // Read before MySQL, so an invalidation that lands after this point blocks the write-back
+        String generation = stringRedisTemplate.opsForValue().get(GENERATION_PREFIX + groupId);
+        GroupMembership membership = GroupMembership.of(memberRepository.findByGroupId(groupId));
+        if (!membership.isEmpty()) {
+            List<String> args = new ArrayList<>();
+            args.add(generation != null ? generation : "");
+            args.add(String.valueOf(redisTtl.toMillis()));
+            for (long id : membership.rawMemberIds()) {
+                args.add(Long.toString(id));
+                args.add(membership.isAdmin(id) ? GroupRole.ADMIN.name() : GroupRole.MEMBER.name());
+            }
+            Long stored = stringRedisTemplate.execute(STORE, List.of(key, GENERATION_PREFIX + groupId), args.toArray());
+            if (!Long.valueOf(1).equals(stored)) {
+                log.debug("Membership of group {} changed while loading, not caching it in Redis", groupId);
+            }
+        }
+        return membership;
+    }
+
+    private GroupMembership fromRedis(Map<Object, Object> entries) {
+        long[] members = new long[entries.size()];
+        long[] admins = new long[entries.size()];
+        int memberCount = 0;
+        int adminCount = 0;
+        for (Map.Entry<Object, Object> e : entries.entrySet()) {
+            long userId = Long.parseLong(e.getKey().toString());
+            members[memberCount++] = userId;
+            if (GroupRole.ADMIN.name().equals(String.valueOf(e.getValue()))) {
+                admins[adminCount++] = userId;
+            }
+        }
+        return GroupMembership.of(members, Arrays.copyOf(admins, adminCount));
+    }
+}
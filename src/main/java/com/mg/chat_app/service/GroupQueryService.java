@@ -0,0 +1,62 @@
+package com.mg.chat_app.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mg.chat_app.dto.GroupDto;
+import com.mg.chat_app.entity.ChatGroup;
+import com.mg.chat_app.model.GroupRole;
+import com.mg.chat_app.repository.ChatGroupRepository;
+import com.mg.chat_app.repository.GroupMemberRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Read model for GroupDto. Builds any number of groups in two queries:
+ * one for the groups, one projection joining members to their usernames.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class GroupQueryService {
+
+    private final ChatGroupRepository groupRepository;
+    private final GroupMemberRepository memberRepository;
+
+    public List<GroupDto> getGroupsForUser(Long userId) {
+        return toDtos(groupRepository.findGroupsForUser(userId));
+    }
+
+    public List<GroupDto> toDtos(List<ChatGroup> groups) {
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<GroupDto.GroupMemberDto>> membersByGroup = new HashMap<>();
+        List<Long> groupIds = groups.stream().map(ChatGroup::getGroupId).toList();
+        for (Object[] row : memberRepository.findMemberRowsByGroupIds(groupIds)) {
+            String username = row[3] != null ? (String) row[3] : "Unknown";
+            membersByGroup.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(GroupDto.GroupMemberDto.builder()
+                            .userId((Long) row[1])
+                            .username(username)
+                            .role(((GroupRole) row[2]).name())
+                            .build());
+        }
+
+        return groups.stream()
+                .map(group -> GroupDto.builder()
+                        .groupId(group.getGroupId())
+                        .name(group.getName())
+                        .createdBy(group.getCreatedBy())
+                        .createdAt(group.getCreatedAt())
+                        .members(membersByGroup.getOrDefault(group.getGroupId(), List.of()))
+                        .build())
+                .toList();
+    }
+}
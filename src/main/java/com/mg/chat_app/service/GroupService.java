@@ -1,7 +1,6 @@
 package com.mg.chat_app.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -9,11 +8,9 @@ import org.springframework.transaction.annotation.Transactional;
 import com.mg.chat_app.dto.GroupDto;
 import com.mg.chat_app.entity.ChatGroup;
 import com.mg.chat_app.entity.GroupMember;
-import com.mg.chat_app.entity.User;
 import com.mg.chat_app.model.GroupRole;
 import com.mg.chat_app.repository.ChatGroupRepository;
 import com.mg.chat_app.repository.GroupMemberRepository;
-import com.mg.chat_app.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -23,7 +20,8 @@ public class GroupService {
 
     private final ChatGroupRepository groupRepository;
     private final GroupMemberRepository memberRepository;
-    private final UserRepository userRepository;
+    private final GroupMembershipCache membershipCache;
+    private final GroupQueryService groupQueryService;
 
     @Transactional
     public ChatGroup createGroup(String name, Long creatorId, List<Long> memberIds) {
@@ -51,6 +49,7 @@ public class GroupService {
             }
         }
 
+        membershipCache.invalidate(group.getGroupId());
         return group;
     }
 
@@ -65,64 +64,34 @@ public class GroupService {
                 .userId(userId)
                 .role(GroupRole.MEMBER)
                 .build());
+        membershipCache.invalidate(groupId);
     }
 
     @Transactional
     public void removeMember(Long groupId, Long userId, Long requesterId) {
         validateAdmin(groupId, requesterId);
         memberRepository.deleteByGroupIdAndUserId(groupId, userId);
+        membershipCache.invalidate(groupId);
     }
 
     public List<GroupDto> getGroupsForUser(Long userId) {
-        List<GroupMember> memberships = memberRepository.findByUserId(userId);
-        return memberships.stream()
-                .map(m -> {
-                    ChatGroup group = groupRepository.findById(m.getGroupId())
-                            .orElseThrow(() -> new RuntimeException("Group not found"));
-                    return toDto(group);
-                })
-                .collect(Collectors.toList());
+        return groupQueryService.getGroupsForUser(userId);
     }
 
     public List<Long> getGroupMemberIds(Long groupId) {
-        return memberRepository.findByGroupId(groupId).stream()
-                .map(GroupMember::getUserId)
-                .collect(Collectors.toList());
+        return membershipCache.get(groupId).memberIds();
     }
 
     public boolean isMember(Long groupId, Long userId) {
-        return memberRepository.existsByGroupIdAndUserId(groupId, userId);
+        return membershipCache.get(groupId).isMember(userId);
     }
 
     public GroupDto toDto(ChatGroup group) {
-        List<GroupMember> members = memberRepository.findByGroupId(group.getGroupId());
-        List<GroupDto.GroupMemberDto> memberDtos = members.stream()
-                .map(m -> {
-                    String username = userRepository.findById(m.getUserId())
-                            .map(User::getUsername)
-                            .orElse("Unknown");
-                    return GroupDto.GroupMemberDto.builder()
-                            .userId(m.getUserId())
-                            .username(username)
-                            .role(m.getRole().name())
-                            .build();
-                })
-                .collect(Collectors.toList());
-
-        return GroupDto.builder()
-                .groupId(group.getGroupId())
-                .name(group.getName())
-                .createdBy(group.getCreatedBy())
-                .createdAt(group.getCreatedAt())
-                .members(memberDtos)
-                .build();
+        return groupQueryService.toDtos(List.of(group)).get(0);
     }
 
     private void validateAdmin(Long groupId, Long userId) {
-        List<GroupMember> members = memberRepository.findByGroupId(groupId);
-        boolean isAdmin = members.stream()
-                .anyMatch(m -> m.getUserId().equals(userId) && m.getRole() == GroupRole.ADMIN);
-        if (!isAdmin) {
+        if (!membershipCache.get(groupId).isAdmin(userId)) {
             throw new SecurityException("Only group admins can perform this action");
         }
     }
@@ -7,17 +7,121 @@ import org.springframework.stereotype.Component;
 @Component
 public class InputSanitizer {
 
+    private static final int MAX_CACHED_BUILDER = 8 * 1024;
+
     private final PolicyFactory policy = new HtmlPolicyBuilder().toFactory();
 
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
     public String sanitize(String input) {
         if (input == null) return null;
-        String sanitized = policy.sanitize(input);
-        // Decode common HTML entities back to plain characters
-        return sanitized
-                .replace("&amp;", "&")
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&quot;", "\"")
-                .replace("&#39;", "'");
+        // Most messages are plain text, which the policy would hand back unchanged
+        if (isPlain(input)) {
+            return input;
+        }
+        return decodeEntities(policy.sanitize(input));
+    }
+
+    /*
+     * True when every char survives the policy plus entity decoding as-is.
+     * The policy re-encodes '>' and '\'' as &gt; and &#39;, which decoding undoes.
+     * Anything it drops, rewrites or leaves encoded sends the input down the slow path:
+     * markup and entities, " + = @ ` { }, control chars other than tab and newline,
+     * C1 controls, line/paragraph separators, BOM, surrogates and noncharacters.
+     */
+    static boolean isPlain(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x20) {
+                if (c != '\t' && c != '\n') {
+                    return false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '<', '&', '"', '+', '=', '@', '`', '{', '}' -> {
+                    return false;
+                }
+                default -> {
+                    if (c >= 0x7F && c <= 0x9F
+                            || c == 0x2028 || c == 0x2029 || c == 0xFEFF
+                            || Character.isSurrogate(c)
+                            || c >= 0xFDD0 && c <= 0xFDEF
+                            || c >= 0xFFFE) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * One pass over the policy output decoding &amp; &lt; &gt; &quot; &#39;.
+     * Matches the former chain of replace() calls exactly, including that an
+     * '&' decoded from &amp; could then start one of the later entities.
+     */
+    static String decodeEntities(String s) {
+        int amp = s.indexOf('&');
+        if (amp < 0) {
+            return s;
+        }
+        StringBuilder out = BUILDER.get();
+        out.setLength(0);
+        out.append(s, 0, amp);
+        int i = amp;
+        int n = s.length();
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c != '&') {
+                out.append(c);
+                i++;
+                continue;
+            }
+            if (s.startsWith("amp;", i + 1)) {
+                i += 5;
+                // The chained replace let the '&' just produced begin another entity
+                int consumed = decodeAfterAmp(s, i, out);
+                if (consumed > 0) {
+                    i += consumed;
+                } else {
+                    out.append('&');
+                }
+                continue;
+            }
+            int consumed = decodeAfterAmp(s, i + 1, out);
+            if (consumed > 0) {
+                i += 1 + consumed;
+            } else {
+                out.append('&');
+                i++;
+            }
+        }
+        String result = out.toString();
+        if (out.capacity() > MAX_CACHED_BUILDER) {
+            BUILDER.remove();
+        }
+        return result;
+    }
+
+    // Appends the char for lt; gt; quot; #39; at pos and returns its length, or 0
+    private static int decodeAfterAmp(String s, int pos, StringBuilder out) {
+        if (s.startsWith("lt;", pos)) {
+            out.append('<');
+            return 3;
+        }
+        if (s.startsWith("gt;", pos)) {
+            out.append('>');
+            return 3;
+        }
+        if (s.startsWith("quot;", pos)) {
+            out.append('"');
+            return 5;
+        }
+        if (s.startsWith("#39;", pos)) {
+            out.append('\'');
+            return 4;
+        }
+        return 0;
     }
 }
@@ -4,6 +4,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HexFormat;
 import java.util.concurrent.TimeUnit;
@@ -14,11 +15,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.mg.chat_app.dto.TokenResponse;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -29,6 +34,14 @@ public class JwtService {
     private static final String REFRESH_TOKEN_KEY_PREFIX = "refresh_token:";
 
     private final Key key;
+    // Immutable and thread-safe, so one parser serves every request
+    private final JwtParser parser;
+    /*
+     * Access tokens that already passed signature verification, keyed by the full
+     * token (the map hashes it; equality on the whole string means a collision can
+     * never return another token's subject). Entries expire at the token's exp.
+     */
+    private final Cache<String, VerifiedToken> verifiedAccessTokens;
     private final long accessExpiryMs;
     private final long refreshExpiryMs;
     private final RedisTemplate<String, Object> redisTemplate;
@@ -37,8 +50,15 @@ public class JwtService {
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.access-expiry-ms:900000}") long accessExpiryMs,
             @Value("${jwt.refresh-expiry-ms:604800000}") long refreshExpiryMs,
+            @Value("${jwt.verified-cache-max-size:100000}") long verifiedCacheMaxSize,
             RedisTemplate<String, Object> redisTemplate) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedAccessTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(Expiry.creating((String token, VerifiedToken verified) ->
+                        Duration.ofMillis(Math.max(0, verified.expiresAtMs() - System.currentTimeMillis()))))
+                .build();
         this.accessExpiryMs = accessExpiryMs;
         this.refreshExpiryMs = refreshExpiryMs;
         this.redisTemplate = redisTemplate;
@@ -101,11 +121,20 @@ public class JwtService {
     }
 
     public String validateAccessToken(String token) {
+        VerifiedToken cached = verifiedAccessTokens.getIfPresent(token);
+        if (cached != null && cached.expiresAtMs() > System.currentTimeMillis()) {
+            return cached.subject();
+        }
+
         Claims claims = parseClaims(token);
         String tokenType = claims.get("tokenType", String.class);
         if (!"access".equals(tokenType)) {
             throw new JwtException("Not an access token");
         }
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verifiedAccessTokens.put(token, new VerifiedToken(claims.getSubject(), expiration.getTime()));
+        }
         return claims.getSubject();
     }
 
@@ -120,11 +149,7 @@ public class JwtService {
 
     private Claims parseClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             throw new JwtException("JWT expired", e);
         }
@@ -139,4 +164,7 @@ public class JwtService {
             throw new RuntimeException("SHA-256 not available", e);
         }
     }
+
+    private record VerifiedToken(String subject, long expiresAtMs) {
+    }
 }
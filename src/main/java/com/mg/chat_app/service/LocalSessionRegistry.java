@@ -0,0 +1,40 @@
+package com.mg.chat_app.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * Node-local table of the users that hold a WebSocket session on this instance.
+ * Filled from WebSocketEventListener; RedisMessageBridge consults it before delivering.
+ */
+@Component
+public class LocalSessionRegistry {
+
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    public void register(Long userId, String sessionId) {
+        sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    /*
+     * Returns true when the user has no sessions left on this node.
+     */
+    public boolean unregister(Long userId, String sessionId) {
+        Set<String> remaining = sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return remaining == null;
+    }
+
+    public boolean isConnected(Long userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public int connectedUserCount() {
+        return sessionsByUser.size();
+    }
+}
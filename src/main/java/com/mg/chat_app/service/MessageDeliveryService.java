@@ -0,0 +1,92 @@
+package com.mg.chat_app.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.mg.chat_app.dto.ChatMessageDto;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Routes a message to every node that holds one of the receiver's WebSockets.
+ * Users connected to this node are served without a Redis hop.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageDeliveryService.class);
+    private final WebSocketSessionService sessionService;
+    private final RedisMessageBridge redisMessageBridge;
+    private final NodeIdentity nodeIdentity;
+
+    /*
+     * One pipelined node lookup for all receivers, local deliveries inline, and every
+     * remote publish sent in a single Redis pipeline. A receiver with tabs on several
+     * nodes gets one publish per node.
+     */
+    public void deliverAll(List<ChatMessageDto> batch) {
+        Set<Long> receivers = new LinkedHashSet<>();
+        batch.forEach(dto -> receivers.add(dto.getReceiverId()));
+        Map<Long, Set<String>> nodes = sessionService.findNodes(receivers);
+
+        List<RedisMessageBridge.NodePublish> remote = new ArrayList<>();
+        for (ChatMessageDto dto : batch) {
+            Set<String> receiverNodes = nodes.getOrDefault(dto.getReceiverId(), Set.of());
+            byte[] payload = null;
+            for (String node : receiverNodes) {
+                if (nodeIdentity.isLocal(node)) {
+                    redisMessageBridge.deliverLocally(dto.getReceiverId(), dto);
+                    continue;
+                }
+                if (payload == null) {
+                    payload = redisMessageBridge.serialize(dto);
+                }
+                remote.add(new RedisMessageBridge.NodePublish(node, List.of(dto.getReceiverId()), payload));
+            }
+        }
+        redisMessageBridge.publishToNodes(remote);
+        log.debug("Delivered batch of {}: {} remote publish(es), {} offline receiver(s)",
+                batch.size(), remote.size(), receivers.size() - nodes.size());
+    }
+
+    /*
+     * Group fan-out: the payload is serialized once and recipients are grouped by
+     * the node hosting their session, so a group costs one publish per node.
+     */
+    public void deliverToGroup(ChatMessageDto dto, Collection<Long> memberIds) {
+        List<Long> recipients = memberIds.stream()
+                .filter(id -> !id.equals(dto.getSenderId()))
+                .toList();
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Long>> recipientsByNode = new HashMap<>();
+        sessionService.findNodes(recipients).forEach((userId, nodes) -> nodes.forEach(node ->
+                recipientsByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(userId)));
+
+        if (recipientsByNode.remove(nodeIdentity.getNodeId()) != null) {
+            redisMessageBridge.deliverGroupLocally(dto);
+        }
+        if (recipientsByNode.isEmpty()) {
+            return;
+        }
+
+        byte[] payload = redisMessageBridge.serialize(dto);
+        List<RedisMessageBridge.NodePublish> publishes = new ArrayList<>(recipientsByNode.size());
+        recipientsByNode.forEach((node, userIds) ->
+                publishes.add(new RedisMessageBridge.NodePublish(node, userIds, payload)));
+        redisMessageBridge.publishToNodes(publishes);
+        log.debug("Fanned out group message {} to {} remote node(s)", dto.getMessageId(), publishes.size());
+    }
+}
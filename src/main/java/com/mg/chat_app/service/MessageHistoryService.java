@@ -0,0 +1,88 @@
+package com.mg.chat_app.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.mg.chat_app.dto.CursorPage;
+import com.mg.chat_app.dto.MessageCursor;
+import com.mg.chat_app.entity.Message;
+import com.mg.chat_app.repository.MessageRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Keyset-paginated history. Items are always newest first; nextCursor scrolls
+ * to older messages, prevCursor to newer ones. Cost is independent of depth.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final MessageCursor LATEST =
+            new MessageCursor(MessageCursor.Direction.OLDER, LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+    private static final Comparator<Message> TIMELINE_ORDER =
+            Comparator.comparing(Message::getCreatedAt).thenComparing(Message::getMessageId);
+
+    private final MessageRepository messageRepository;
+
+    public CursorPage<Message> conversation(Long userId, Long otherUserId, String cursor, int size) {
+        MessageCursor position = cursor == null || cursor.isBlank() ? LATEST : MessageCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize(size) + 1);
+        List<Message> rows = new ArrayList<>(direct(userId, otherUserId, position, limit));
+        if (!userId.equals(otherUserId)) {
+            rows.addAll(direct(otherUserId, userId, position, limit));
+        }
+        // Each side holds up to size + 1 rows, so the merged head is exact and hasMore still holds
+        rows.sort(position.getDirection() == MessageCursor.Direction.OLDER
+                ? TIMELINE_ORDER.reversed() : TIMELINE_ORDER);
+        return toPage(rows, position, pageSize(size));
+    }
+
+    public CursorPage<Message> group(Long groupId, String cursor, int size) {
+        MessageCursor position = cursor == null || cursor.isBlank() ? LATEST : MessageCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize(size) + 1);
+        List<Message> rows = position.getDirection() == MessageCursor.Direction.OLDER
+                ? messageRepository.findGroupMessagesBefore(groupId,
+                        position.getCreatedAt(), position.getMessageId(), limit)
+                : messageRepository.findGroupMessagesAfter(groupId,
+                        position.getCreatedAt(), position.getMessageId(), limit);
+        return toPage(rows, position, pageSize(size));
+    }
+
+    private List<Message> direct(Long senderId, Long receiverId, MessageCursor position, Limit limit) {
+        return position.getDirection() == MessageCursor.Direction.OLDER
+                ? messageRepository.findDirectBefore(senderId, receiverId,
+                        position.getCreatedAt(), position.getMessageId(), limit)
+                : messageRepository.findDirectAfter(senderId, receiverId,
+                        position.getCreatedAt(), position.getMessageId(), limit);
+    }
+
+    private CursorPage<Message> toPage(List<Message> rows, MessageCursor position, int size) {
+        boolean hasMore = rows.size() > size;
+        List<Message> items = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        boolean older = position.getDirection() == MessageCursor.Direction.OLDER;
+        if (!older) {
+            Collections.reverse(items);
+        }
+
+        if (items.isEmpty()) {
+            // Nothing newer yet: hand the same cursor back so the client can poll with it
+            return new CursorPage<>(items, null, older ? null : position.encode());
+        }
+        boolean moreOlder = !older || hasMore;
+        String next = moreOlder ? MessageCursor.olderThan(items.get(items.size() - 1)).encode() : null;
+        String prev = MessageCursor.newerThan(items.get(0)).encode();
+        return new CursorPage<>(items, next, prev);
+    }
+
+    private int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,44 @@
+package com.mg.chat_app.service;
+
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Identifies this instance in the session directory and names its Redis inbox.
+ * Defaults to the pod hostname; falls back to a random id for local runs.
+ */
+@Component
+public class NodeIdentity {
+
+    private static final Logger log = LoggerFactory.getLogger(NodeIdentity.class);
+    private static final String INBOX_PREFIX = "chat:node:";
+
+    private final String nodeId;
+
+    public NodeIdentity(@Value("${chat.node.id:${HOSTNAME:}}") String configuredId) {
+        this.nodeId = configuredId == null || configuredId.isBlank()
+                ? UUID.randomUUID().toString()
+                : configuredId;
+        log.info("Running as chat node {}", nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isLocal(String otherNodeId) {
+        return nodeId.equals(otherNodeId);
+    }
+
+    public String inboxChannel() {
+        return inboxChannel(nodeId);
+    }
+
+    public static String inboxChannel(String nodeId) {
+        return INBOX_PREFIX + nodeId;
+    }
+}
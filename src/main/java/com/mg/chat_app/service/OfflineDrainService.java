@@ -0,0 +1,81 @@
+package com.mg.chat_app.service;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mg.chat_app.entity.Message;
+import com.mg.chat_app.model.MessageStatus;
+import com.mg.chat_app.repository.MessageRepository;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+/*
+ * Streams a user's SENT backlog as a JSON array, walking it in messageId order
+ * in fixed-size chunks. Each chunk is read and moved to DELIVERED in its own
+ * short transaction, so neither heap use nor transaction length grows with the backlog.
+ */
+@Service
+public class OfflineDrainService {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineDrainService.class);
+
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final int chunkSize;
+
+    public OfflineDrainService(MessageRepository messageRepository,
+                               PlatformTransactionManager transactionManager,
+                               JsonMapper jsonMapper,
+                               @Value("${chat.offline.chunk-size:500}") int chunkSize) {
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jsonMapper = jsonMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public void drain(Long userId, OutputStream out) {
+        long lastId = 0;
+        int total = 0;
+        try (JsonGenerator generator = jsonMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            List<Message> chunk;
+            do {
+                long after = lastId;
+                chunk = transactionTemplate.execute(status -> nextChunk(userId, after));
+                for (Message message : chunk) {
+                    generator.writePOJO(message);
+                }
+                generator.flush();
+                if (!chunk.isEmpty()) {
+                    lastId = chunk.get(chunk.size() - 1).getMessageId();
+                    total += chunk.size();
+                }
+            } while (chunk.size() == chunkSize);
+            generator.writeEndArray();
+        }
+        log.debug("Drained {} offline message(s) for userId={}", total, userId);
+    }
+
+    private List<Message> nextChunk(Long userId, long afterMessageId) {
+        List<Message> chunk = messageRepository.findByReceiverIdAndStatusAndMessageIdGreaterThanOrderByMessageIdAsc(
+                userId, MessageStatus.SENT, afterMessageId, Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            return chunk;
+        }
+        messageRepository.updateStatus(chunk.stream().map(Message::getMessageId).toList(),
+                MessageStatus.SENT, MessageStatus.DELIVERED);
+        // updateStatus clears the persistence context, so this only touches detached copies for the response
+        chunk.forEach(m -> m.setStatus(MessageStatus.DELIVERED));
+        return chunk;
+    }
+}
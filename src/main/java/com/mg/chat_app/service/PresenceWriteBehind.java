@@ -0,0 +1,180 @@
+package com.mg.chat_app.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Presence lives in Redis; MySQL's presence table is an approximate copy kept
+ * current by this write-behind buffer. Changes are coalesced per user and
+ * flushed periodically as multi-row upserts.
+ */
+@Component
+public class PresenceWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceWriteBehind.class);
+    private static final String PRESENCE_PREFIX = "presence:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final int batchSize;
+    private final long lastSeenGranularityMs;
+    private final long staleAfterMs;
+
+    // Latest unflushed state per user; newer changes overwrite older ones
+    private final Map<Long, PresenceChange> pending = new ConcurrentHashMap<>();
+    // Users seen online through this node, with the time of their last heartbeat and last write
+    private final Map<Long, Tracked> tracked = new ConcurrentHashMap<>();
+
+    public PresenceWriteBehind(JdbcTemplate jdbcTemplate,
+                               RedisTemplate<String, Object> redisTemplate,
+                               @Value("${chat.presence.flush-batch-size:500}") int batchSize,
+                               @Value("${chat.presence.last-seen-granularity:60s}") Duration lastSeenGranularity,
+                               @Value("${chat.presence.stale-after:5m}") Duration staleAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.batchSize = batchSize;
+        this.lastSeenGranularityMs = lastSeenGranularity.toMillis();
+        this.staleAfterMs = staleAfter.toMillis();
+    }
+
+    public void online(Long userId) {
+        long now = System.currentTimeMillis();
+        boolean[] changed = {false};
+        tracked.compute(userId, (id, t) -> {
+            if (t == null) {
+                changed[0] = true;
+                return new Tracked(now, now);
+            }
+            t.lastHeartbeat = now;
+            // Only refresh last_seen in MySQL at a coarse granularity
+            if (now - t.lastWritten >= lastSeenGranularityMs) {
+                t.lastWritten = now;
+                changed[0] = true;
+            }
+            return t;
+        });
+        if (changed[0]) {
+            pending.put(userId, new PresenceChange(true, now));
+        }
+    }
+
+    public void offline(Long userId) {
+        tracked.remove(userId);
+        pending.put(userId, new PresenceChange(false, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval-ms:5000}")
+    public void flush() {
+        expireStale();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(Math.min(pending.size(), batchSize));
+        Iterator<Map.Entry<Long, PresenceChange>> it = pending.entrySet().iterator();
+        int written = 0;
+        while (it.hasNext()) {
+            Map.Entry<Long, PresenceChange> e = it.next();
+            // remove(key, value) keeps a change that raced in after we read the entry
+            if (pending.remove(e.getKey(), e.getValue())) {
+                rows.add(new Object[] { e.getKey(), e.getValue().online(), e.getValue().at() });
+            }
+            if (rows.size() == batchSize) {
+                written += upsert(rows);
+                rows.clear();
+            }
+        }
+        written += upsert(rows);
+        log.debug("Flushed {} presence change(s) to MySQL", written);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /*
+     * Users whose heartbeats stopped without a disconnect: mark them offline
+     * once their Redis presence key has expired (they may be heartbeating elsewhere).
+     */
+    private void expireStale() {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        List<Long> candidates = new ArrayList<>();
+        tracked.forEach((userId, t) -> {
+            if (t.lastHeartbeat < cutoff) {
+                candidates.add(userId);
+            }
+        });
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = candidates.stream().map(id -> PRESENCE_PREFIX + id).toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < candidates.size(); i++) {
+            Long userId = candidates.get(i);
+            tracked.remove(userId);
+            if (values == null || values.get(i) == null) {
+                pending.putIfAbsent(userId, new PresenceChange(false, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private int upsert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO presence (user_id, is_online, last_seen) VALUES ");
+        List<Object> args = new ArrayList<>(rows.size() * 3);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            Object[] row = rows.get(i);
+            args.add(row[0]);
+            args.add(row[1]);
+            args.add(new Timestamp((Long) row[2]));
+        }
+        // Nodes flush on their own schedules, so an older change must not overwrite a newer one.
+        // is_online is assigned first, while presence.last_seen still holds the stored value
+        sql.append(" AS incoming ON DUPLICATE KEY UPDATE")
+                .append(" is_online = IF(presence.last_seen IS NULL OR incoming.last_seen >= presence.last_seen,")
+                .append(" incoming.is_online, presence.is_online),")
+                .append(" last_seen = GREATEST(COALESCE(presence.last_seen, incoming.last_seen), incoming.last_seen)");
+        try {
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        } catch (RuntimeException e) {
+            // Presence is approximate; requeue so the next flush retries, unless a newer change arrived
+            log.warn("Presence flush of {} row(s) failed, will retry: {}", rows.size(), e.getMessage());
+            rows.forEach(r -> pending.putIfAbsent((Long) r[0], new PresenceChange((Boolean) r[1], (Long) r[2])));
+            return 0;
+        }
+        return rows.size();
+    }
+
+    private record PresenceChange(boolean online, long at) {
+    }
+
+    private static final class Tracked {
+        volatile long lastHeartbeat;
+        volatile long lastWritten;
+
+        Tracked(long lastHeartbeat, long lastWritten) {
+            this.lastHeartbeat = lastHeartbeat;
+            this.lastWritten = lastWritten;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mg.chat_app.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.mg.chat_app.dto.ReadReceiptDto;
+import com.mg.chat_app.repository.MessageRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * "Read up to X" for a conversation. The watermark per (reader, sender) lives in
+ * the Redis hash read:watermark:{readerId} and only moves forward; MySQL is
+ * brought in line with one set-based UPDATE and the sender gets one receipt
+ * for the whole range.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReadWatermarkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWatermarkService.class);
+    private static final String WATERMARK_PREFIX = "read:watermark:";
+
+    // Sets the field to ARGV[2] if it is higher and returns the previous value (0 when unset)
+    private static final RedisScript<Long> ADVANCE = new DefaultRedisScript<>(
+            "local old = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0') " +
+            "if tonumber(ARGV[2]) > old then redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) end " +
+            "return old", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MessageRepository messageRepository;
+    private final UnreadCounterService unreadCounters;
+
+    /*
+     * Returns the receipt to send, or empty when nothing changed.
+     *
+     * The UPDATE runs even when the watermark was already at or past upToMessageId:
+     * it is idempotent, and it repairs rows a failed earlier attempt left unread or
+     * rows inserted after the watermark moved (kafka-first mode). The watermark goes
+     * first so MessagePersistenceConsumer can see it for rows it inserts meanwhile.
+     */
+    public Optional<ReadReceiptDto> markReadUpTo(Long readerId, Long senderId, Long upToMessageId) {
+        Long previous = stringRedisTemplate.execute(ADVANCE,
+                List.of(WATERMARK_PREFIX + readerId), senderId.toString(), upToMessageId.toString());
+        long from = previous != null ? previous : 0L;
+        boolean advanced = upToMessageId > from;
+
+        int updated = applyWatermark(readerId, senderId, upToMessageId);
+        if (!advanced && updated == 0) {
+            return Optional.empty();
+        }
+        log.debug("User {} read messages from {} up to {} ({} row(s))", readerId, senderId, upToMessageId, updated);
+
+        return Optional.of(new ReadReceiptDto(upToMessageId, senderId, readerId, "READ",
+                advanced && from != 0L ? from : null, upToMessageId));
+    }
+
+    /*
+     * Current watermarks for many conversations in one pipeline. Conversations without one are absent.
+     */
+    public Map<Conversation, Long> watermarks(Collection<Conversation> conversations) {
+        if (conversations.isEmpty()) {
+            return Map.of();
+        }
+        List<Conversation> ordered = new ArrayList<>(conversations);
+        List<Object> values = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Conversation c : ordered) {
+                redis.hGet(WATERMARK_PREFIX + c.readerId(), c.senderId().toString());
+            }
+            return null;
+        });
+        Map<Conversation, Long> result = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                result.put(ordered.get(i), Long.valueOf(value.toString()));
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Brings MySQL in line with a watermark that is already in Redis, e.g. for rows
+     * inserted after the reader moved it. Idempotent; returns the rows changed.
+     */
+    public int applyWatermark(Long readerId, Long senderId, long watermark) {
+        int updated = messageRepository.markReadUpTo(senderId, readerId, watermark);
+        unreadCounters.decrementDirect(readerId, senderId, updated);
+        return updated;
+    }
+
+    public record Conversation(Long readerId, Long senderId) {
+    }
+}
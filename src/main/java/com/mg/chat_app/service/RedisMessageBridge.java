@@ -1,18 +1,21 @@
 package com.mg.chat_app.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.Message;
-import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import com.mg.chat_app.dto.ChatMessageDto;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -20,62 +23,83 @@ import lombok.RequiredArgsConstructor;
 public class RedisMessageBridge {
 
     private static final Logger log = LoggerFactory.getLogger(RedisMessageBridge.class);
+
     private final RedisMessageListenerContainer listenerContainer;
     private final SimpMessagingTemplate messagingTemplate;
     private final RedisTemplate<String, Object> redisTemplate;
-    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+    private final LocalSessionRegistry localSessions;
+    private final NodeIdentity nodeIdentity;
+    private final ChatMessageRedisSerializer serializer;
 
-    public void publishToUser(Long userId, ChatMessageDto dto) {
-        String channel = "chat:deliver:" + userId;
-        redisTemplate.convertAndSend(channel, dto);
-        log.debug("Published message to Redis channel {}", channel);
+    /*
+     * Each node subscribes once, to its own inbox. Which users are served here
+     * is decided by LocalSessionRegistry, not by Redis.
+     */
+    @PostConstruct
+    public void subscribe() {
+        String inbox = nodeIdentity.inboxChannel();
+        listenerContainer.addMessageListener(this::onNodeMessage, new ChannelTopic(inbox));
+        log.info("Subscribed to Redis inbox {}", inbox);
     }
 
-    public void publishToGroup(Long groupId, ChatMessageDto dto) {
-        String channel = "chat:group:" + groupId;
-        redisTemplate.convertAndSend(channel, dto);
-        log.debug("Published group message to Redis channel {}", channel);
+    public byte[] serialize(ChatMessageDto dto) {
+        return serializer.serialize(dto);
     }
 
-    public void subscribeUser(Long userId) {
-        String channel = "chat:deliver:" + userId;
-        listenerContainer.addMessageListener(createUserListener(userId), new ChannelTopic(channel));
-        log.info("Subscribed to Redis channel {}", channel);
+    /*
+     * Publishes many node deliveries over one pipelined connection.
+     */
+    public void publishToNodes(List<NodePublish> publishes) {
+        if (publishes.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (NodePublish publish : publishes) {
+                byte[] channel = NodeIdentity.inboxChannel(publish.nodeId()).getBytes(StandardCharsets.UTF_8);
+                connection.publish(channel, DeliveryFrame.encode(publish.recipientIds(), publish.payload()));
+            }
+            return null;
+        });
+        log.debug("Pipelined {} node deliveries", publishes.size());
     }
 
-    public void unsubscribeUser(Long userId) {
-        String channel = "chat:deliver:" + userId;
-        listenerContainer.removeMessageListener(null, new ChannelTopic(channel));
-        log.info("Unsubscribed from Redis channel {}", channel);
+    /*
+     * Hands a message straight to the local broker. Returns false when the user has no session here.
+     */
+    public boolean deliverLocally(Long userId, ChatMessageDto dto) {
+        if (!localSessions.isConnected(userId)) {
+            return false;
+        }
+        messagingTemplate.convertAndSend("/topic/messages/" + userId, dto);
+        log.debug("Delivered message to local WebSocket for userId={}", userId);
+        return true;
     }
 
-    public void subscribeGroup(Long groupId) {
-        String channel = "chat:group:" + groupId;
-        listenerContainer.addMessageListener(createGroupListener(groupId), new ChannelTopic(channel));
-        log.info("Subscribed to Redis group channel {}", channel);
+    /*
+     * Group messages go out once per node on the group topic; every local
+     * subscriber of /topic/groups/{groupId} receives it from the simple broker.
+     */
+    public void deliverGroupLocally(ChatMessageDto dto) {
+        messagingTemplate.convertAndSend("/topic/groups/" + dto.getGroupId(), dto);
+        log.debug("Delivered group message to local WebSocket for groupId={}", dto.getGroupId());
     }
 
-    private MessageListener createUserListener(Long userId) {
-        return (Message message, byte[] pattern) -> {
-            try {
-                ChatMessageDto dto = (ChatMessageDto) serializer.deserialize(message.getBody());
-                messagingTemplate.convertAndSend("/topic/messages/" + userId, dto);
-                log.debug("Delivered message to local WebSocket for userId={}", userId);
-            } catch (Exception e) {
-                log.error("Failed to deliver Redis message to user {}", userId, e);
+    private void onNodeMessage(Message message, byte[] pattern) {
+        try {
+            DeliveryFrame frame = DeliveryFrame.decode(message.getBody());
+            ChatMessageDto dto = serializer.deserialize(frame.payload());
+            if (dto.getGroupId() != null) {
+                deliverGroupLocally(dto);
+                return;
             }
-        };
+            for (long userId : frame.recipientIds()) {
+                deliverLocally(userId, dto);
+            }
+        } catch (Exception e) {
+            log.error("Failed to deliver Redis message from node inbox", e);
+        }
     }
 
-    private MessageListener createGroupListener(Long groupId) {
-        return (Message message, byte[] pattern) -> {
-            try {
-                ChatMessageDto dto = (ChatMessageDto) serializer.deserialize(message.getBody());
-                messagingTemplate.convertAndSend("/topic/groups/" + groupId, dto);
-                log.debug("Delivered group message to local WebSocket for groupId={}", groupId);
-            } catch (Exception e) {
-                log.error("Failed to deliver Redis group message for group {}", groupId, e);
-            }
-        };
+    public record NodePublish(String nodeId, List<Long> recipientIds, byte[] payload) {
     }
 }
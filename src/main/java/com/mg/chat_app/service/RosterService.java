@@ -0,0 +1,47 @@
+package com.mg.chat_app.service;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Per-user set of direct-message contacts in Redis (roster:{userId}).
+ * Maintained on send so presence lookups never need to scan users.
+ */
+@Service
+@RequiredArgsConstructor
+public class RosterService {
+
+    private static final String ROSTER_PREFIX = "roster:";
+    private static final int MAX_ROSTER_SIZE = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @SuppressWarnings("unchecked")
+    public void addContacts(Long userId, Long otherUserId) {
+        RedisSerializer<String> keys = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> values = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.setCommands().sAdd(keys.serialize(ROSTER_PREFIX + userId), values.serialize(otherUserId.toString()));
+            connection.setCommands().sAdd(keys.serialize(ROSTER_PREFIX + otherUserId), values.serialize(userId.toString()));
+            return null;
+        });
+    }
+
+    public List<Long> getRoster(Long userId) {
+        Set<Object> members = redisTemplate.opsForSet().members(ROSTER_PREFIX + userId);
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream()
+                .limit(MAX_ROSTER_SIZE)
+                .map(m -> Long.valueOf(m.toString()))
+                .toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.mg.chat_app.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Time-ordered ids: [41 bits ms since EPOCH][6 bits node][6 bits sequence].
+ * The layout keeps every id below 2^53 so browsers read it as an exact number.
+ *
+ * State is a single AtomicLong holding (timestamp << SEQUENCE_BITS | sequence),
+ * advanced by CAS. When a millisecond's sequence runs out, or the clock steps
+ * back, the counter carries into the timestamp and keeps going, so ids stay
+ * unique and increasing on a node without blocking.
+ *
+ * Uniqueness across nodes rests on the node id: either configured explicitly or
+ * leased from Redis (SnowflakeNodeLease). A leased generator refuses to issue ids
+ * once its lease deadline passes without renewal.
+ */
+public final class Snowflake {
+
+    private static final Logger log = LoggerFactory.getLogger(Snowflake.class);
+
+    public static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    public static final int NODE_BITS = 6;
+    public static final int SEQUENCE_BITS = 6;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final long NO_LEASE = Long.MIN_VALUE;
+
+    private static volatile Snowflake shared;
+
+    private final long nodeBits;
+    private final AtomicLong state = new AtomicLong();
+    private final LongSupplier clock;
+    private volatile long leaseDeadlineNanos = NO_LEASE;
+
+    public Snowflake(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    Snowflake(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Snowflake node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        long deadline = leaseDeadlineNanos;
+        if (deadline != NO_LEASE && System.nanoTime() - deadline > 0) {
+            throw new IllegalStateException("Snowflake node id " + nodeId() + " lease expired; refusing to issue ids");
+        }
+        long now = clock.getAsLong() - EPOCH;
+        while (true) {
+            long current = state.get();
+            long candidate = (current >>> SEQUENCE_BITS) < now ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, candidate)) {
+                return ((candidate >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | nodeBits | (candidate & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public int nodeId() {
+        return (int) (nodeBits >>> SEQUENCE_BITS);
+    }
+
+    /*
+     * Creation time encoded in an id, in epoch milliseconds.
+     */
+    public static long timestampMillis(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /*
+     * Moves the generator to at least the given time, so a node id taken over from
+     * another instance never reissues that instance's ids.
+     */
+    public void advanceTo(long epochMillis) {
+        long floor = (epochMillis - EPOCH) << SEQUENCE_BITS;
+        state.accumulateAndGet(floor, Math::max);
+    }
+
+    /*
+     * Timestamp of the latest id issued (or the floor set by advanceTo), in epoch milliseconds.
+     */
+    public long lastTimestampMillis() {
+        return (state.get() >>> SEQUENCE_BITS) + EPOCH;
+    }
+
+    /*
+     * Ids may be issued until System.nanoTime() passes the deadline; set by the lease heartbeat.
+     */
+    public void leaseUntil(long deadlineNanos) {
+        this.leaseDeadlineNanos = deadlineNanos == NO_LEASE ? deadlineNanos + 1 : deadlineNanos;
+    }
+
+    /*
+     * Process-wide fallback for code paths outside the Spring context (e.g. slice tests).
+     * Never used by the application, where Hibernate gets the leased or configured bean.
+     */
+    public static Snowflake shared() {
+        Snowflake instance = shared;
+        if (instance == null) {
+            synchronized (Snowflake.class) {
+                if (shared == null) {
+                    log.warn("Using the process-wide Snowflake with node id 0; ids are only unique within this process");
+                    shared = new Snowflake(0);
+                }
+                instance = shared;
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,163 @@
+package com.mg.chat_app.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/*
+ * Gives this instance a Snowflake node id. An explicit chat.id.node-id is used as is;
+ * otherwise one of the 64 ids is leased from Redis with SET NX PX and renewed on a
+ * heartbeat. Startup fails when no id can be had, rather than guessing one that
+ * another pod may share.
+ *
+ * Each renewal also records the generator's latest timestamp in id:node:{n}:hwm.
+ * The next holder of the id starts past it (plus one lease period when the previous
+ * holder did not release cleanly), so a restart or a clock step back on the new
+ * pod cannot reissue ids.
+ */
+public class SnowflakeNodeLease implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeNodeLease.class);
+    private static final String NEXT_KEY = "id:node:next";
+    private static final String LEASE_PREFIX = "id:node:";
+    private static final String HWM_SUFFIX = ":hwm";
+    private static final String CLEAN_MARK = ":clean";
+
+    // Extends the lease and records the high-water mark while we still own it
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) redis.call('SET', KEYS[2], ARGV[3]) return 1 end " +
+            "return 0", Long.class);
+
+    // Records the final high-water mark and frees the id for the next pod
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "redis.call('SET', KEYS[2], ARGV[2]) return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final Duration ttl;
+    private final String owner;
+    private final Snowflake snowflake;
+    private final ScheduledExecutorService heartbeat;
+
+    /*
+     * Static assignment from configuration; nothing is leased.
+     */
+    public SnowflakeNodeLease(int configuredNodeId) {
+        this.redis = null;
+        this.ttl = null;
+        this.owner = null;
+        this.snowflake = new Snowflake(configuredNodeId);
+        this.heartbeat = null;
+        log.info("Snowflake id generator running with configured node id {}", configuredNodeId);
+    }
+
+    public SnowflakeNodeLease(StringRedisTemplate redis, Duration ttl, String hostname) {
+        this.redis = redis;
+        this.ttl = ttl;
+        this.owner = (hostname == null || hostname.isBlank() ? "node" : hostname) + ":" + UUID.randomUUID();
+
+        long started = System.nanoTime();
+        int nodeId = acquire();
+        this.snowflake = new Snowflake(nodeId);
+        snowflake.advanceTo(resumeFrom(nodeId));
+        snowflake.leaseUntil(started + ttl.toNanos());
+
+        long interval = Math.max(1, ttl.toMillis() / 3);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snowflake-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Snowflake id generator running with leased node id {} (lease {} ms)", nodeId, ttl.toMillis());
+    }
+
+    public Snowflake snowflake() {
+        return snowflake;
+    }
+
+    @Override
+    public void close() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdownNow();
+        try {
+            redis.execute(RELEASE, List.of(leaseKey(), hwmKey(snowflake.nodeId())),
+                    owner, snowflake.lastTimestampMillis() + CLEAN_MARK);
+            log.info("Released Snowflake node id {}", snowflake.nodeId());
+        } catch (RuntimeException e) {
+            log.warn("Could not release Snowflake node id {}; it frees up when the lease expires", snowflake.nodeId(), e);
+        }
+    }
+
+    /*
+     * Tries every id once, starting at a rotating offset so concurrent starts spread out.
+     */
+    private int acquire() {
+        Long next = redis.opsForValue().increment(NEXT_KEY);
+        int start = Math.floorMod(next != null ? next : 0L, Snowflake.MAX_NODE_ID + 1);
+        for (int i = 0; i <= Snowflake.MAX_NODE_ID; i++) {
+            int candidate = (start + i) % (Snowflake.MAX_NODE_ID + 1);
+            if (Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(LEASE_PREFIX + candidate, owner, ttl))) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("All " + (Snowflake.MAX_NODE_ID + 1)
+                + " Snowflake node ids are leased; set chat.id.node-id or scale down");
+    }
+
+    private long resumeFrom(int nodeId) {
+        String hwm = redis.opsForValue().get(hwmKey(nodeId));
+        if (hwm == null) {
+            return 0L;
+        }
+        boolean clean = hwm.endsWith(CLEAN_MARK);
+        long millis = Long.parseLong(clean ? hwm.substring(0, hwm.length() - CLEAN_MARK.length()) : hwm);
+        // After a crash the old holder may have kept issuing for up to one lease period past its last renewal
+        return clean ? millis + 1 : millis + ttl.toMillis();
+    }
+
+    private void renew() {
+        int nodeId = snowflake.nodeId();
+        long started = System.nanoTime();
+        try {
+            Long renewed = redis.execute(RENEW, List.of(leaseKey(), hwmKey(nodeId)),
+                    owner, String.valueOf(ttl.toMillis()), String.valueOf(snowflake.lastTimestampMillis()));
+            if (Long.valueOf(1).equals(renewed)) {
+                snowflake.leaseUntil(started + ttl.toNanos());
+                return;
+            }
+            // The lease lapsed; another pod may have held the id meanwhile, so resume past its mark
+            if (Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(leaseKey(), owner, ttl))) {
+                snowflake.advanceTo(resumeFrom(nodeId));
+                snowflake.leaseUntil(started + ttl.toNanos());
+                log.warn("Snowflake node id {} lease lapsed and was re-acquired", nodeId);
+                return;
+            }
+            log.error("Snowflake node id {} was taken over by another instance; id generation stops when the lease runs out",
+                    nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not renew Snowflake node id {} lease: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private String leaseKey() {
+        return LEASE_PREFIX + snowflake.nodeId();
+    }
+
+    private static String hwmKey(int nodeId) {
+        return LEASE_PREFIX + nodeId + HWM_SUFFIX;
+    }
+}
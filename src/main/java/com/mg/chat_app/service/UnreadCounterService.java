@@ -0,0 +1,216 @@
+package com.mg.chat_app.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mg.chat_app.model.MessageStatus;
+import com.mg.chat_app.repository.MessageRepository;
+import com.mg.chat_app.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Unread counters kept in Redis so /unread-counts is a single HGETALL.
+ * unread:{receiverId} maps senderId -> count, unread:groups:{userId} maps groupId -> count.
+ * Direct counters are rebuilt from MySQL periodically to repair drift. Group
+ * counters are not: group messages carry no per-member read state in MySQL, so
+ * there is nothing to count them against. They only grow until the user opens
+ * the group, which deletes the field, so any drift lasts until that next open.
+ */
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadCounterService.class);
+    private static final String DIRECT_PREFIX = "unread:";
+    private static final String GROUP_PREFIX = "unread:groups:";
+    private static final String RECONCILE_LOCK = "lock:unread-reconcile";
+    private static final Duration RECONCILE_LOCK_TTL = Duration.ofMinutes(5);
+    private static final int RECONCILE_CHUNK = 500;
+
+    // Per field: write the counted value only if the field still holds what the snapshot saw
+    private static final RedisScript<Long> REPAIR = new DefaultRedisScript<>(
+            "local fixed = 0 " +
+            "for i = 1, #ARGV, 3 do " +
+            "  if (redis.call('HGET', KEYS[1], ARGV[i]) or '') == ARGV[i + 1] then " +
+            "    if ARGV[i + 2] == '' then redis.call('HDEL', KEYS[1], ARGV[i]) " +
+            "    else redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2]) end " +
+            "    fixed = fixed + 1 " +
+            "  end " +
+            "end " +
+            "return fixed", Long.class);
+
+    private static final RedisScript<Long> EXTEND_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+    private static final List<MessageStatus> UNREAD = List.of(MessageStatus.SENT, MessageStatus.DELIVERED);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final NodeIdentity nodeIdentity;
+
+    public void incrementDirect(Long receiverId, Long senderId) {
+        stringRedisTemplate.opsForHash().increment(DIRECT_PREFIX + receiverId, senderId.toString(), 1);
+    }
+
+    public void decrementDirect(Long receiverId, Long senderId, long count) {
+        if (count <= 0) {
+            return;
+        }
+        String key = DIRECT_PREFIX + receiverId;
+        Long left = stringRedisTemplate.opsForHash().increment(key, senderId.toString(), -count);
+        if (left != null && left <= 0) {
+            stringRedisTemplate.opsForHash().delete(key, senderId.toString());
+        }
+    }
+
+    /*
+     * One pipelined HINCRBY per member, skipping the sender.
+     */
+    public void incrementGroup(Long groupId, Collection<Long> memberIds, Long senderId) {
+        String field = groupId.toString();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection c = (StringRedisConnection) connection;
+            for (Long memberId : memberIds) {
+                if (!memberId.equals(senderId)) {
+                    c.hIncrBy(GROUP_PREFIX + memberId, field, 1);
+                }
+            }
+            return null;
+        });
+    }
+
+    public void resetGroup(Long userId, Long groupId) {
+        stringRedisTemplate.opsForHash().delete(GROUP_PREFIX + userId, groupId.toString());
+    }
+
+    public Map<Long, Long> directCounts(Long userId) {
+        return read(DIRECT_PREFIX + userId);
+    }
+
+    public Map<Long, Long> groupCounts(Long userId) {
+        return read(GROUP_PREFIX + userId);
+    }
+
+    private Map<Long, Long> read(String key) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+        Map<Long, Long> counts = new HashMap<>(entries.size() * 2);
+        entries.forEach((field, value) -> {
+            long count = Long.parseLong(value.toString());
+            if (count > 0) {
+                counts.put(Long.valueOf(field.toString()), count);
+            }
+        });
+        return counts;
+    }
+
+    /*
+     * Rebuilds direct counters from MySQL, RECONCILE_CHUNK receivers at a time. Each chunk
+     * snapshots the Redis hashes, counts unread rows, and writes back only the fields that
+     * still hold the snapshot value. A field an increment or read receipt touched in the
+     * meantime is left alone and checked again on the next pass.
+     */
+    @Scheduled(fixedDelayString = "${chat.unread.reconcile-interval-ms:600000}",
+               initialDelayString = "${chat.unread.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        String owner = nodeIdentity.getNodeId();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(RECONCILE_LOCK, owner, RECONCILE_LOCK_TTL);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+        int receivers = 0;
+        long fixed = 0;
+        try {
+            long lastId = 0;
+            List<Long> chunk;
+            do {
+                chunk = userRepository.findUserIdsAfter(lastId, Limit.of(RECONCILE_CHUNK));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                fixed += reconcileChunk(chunk);
+                receivers += chunk.size();
+                lastId = chunk.get(chunk.size() - 1);
+                // Keep the lock alive for long runs, and stop if another node has taken it over
+                if (!Long.valueOf(1).equals(stringRedisTemplate.execute(EXTEND_LOCK, List.of(RECONCILE_LOCK),
+                        owner, String.valueOf(RECONCILE_LOCK_TTL.toMillis())))) {
+                    log.warn("Lost the unread reconcile lock after {} receiver(s), stopping", receivers);
+                    return;
+                }
+            } while (chunk.size() == RECONCILE_CHUNK);
+            log.info("Reconciled unread counters of {} receiver(s), {} field(s) corrected", receivers, fixed);
+        } catch (Exception e) {
+            log.error("Unread counter reconciliation failed", e);
+        } finally {
+            stringRedisTemplate.execute(RELEASE_LOCK, List.of(RECONCILE_LOCK), owner);
+        }
+    }
+
+    private long reconcileChunk(List<Long> receiverIds) {
+        // Snapshot first, so every change after this point shows up as a mismatch in the script
+        List<Object> snapshots = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection c = (StringRedisConnection) connection;
+            receiverIds.forEach(id -> c.hGetAll(DIRECT_PREFIX + id));
+            return null;
+        });
+
+        Map<Long, Map<String, String>> counted = new HashMap<>();
+        for (Object[] row : messageRepository.countUnreadByReceiverAndSender(receiverIds, UNREAD)) {
+            counted.computeIfAbsent((Long) row[0], k -> new HashMap<>()).put(row[1].toString(), row[2].toString());
+        }
+
+        long fixed = 0;
+        for (int i = 0; i < receiverIds.size(); i++) {
+            Long receiverId = receiverIds.get(i);
+            Map<?, ?> snapshot = snapshots.get(i) instanceof Map<?, ?> m ? m : Map.of();
+            Map<String, String> expected = counted.getOrDefault(receiverId, Map.of());
+
+            // ARGV triples: field, value in the snapshot, counted value ('' for absent)
+            List<String> args = new ArrayList<>();
+            Set<String> fields = new HashSet<>(expected.keySet());
+            snapshot.keySet().forEach(f -> fields.add(f.toString()));
+            for (String field : fields) {
+                Object seen = snapshot.get(field);
+                String before = seen != null ? seen.toString() : "";
+                String after = expected.getOrDefault(field, "");
+                if (!before.equals(after)) {
+                    args.add(field);
+                    args.add(before);
+                    args.add(after);
+                }
+            }
+            if (!args.isEmpty()) {
+                Long written = stringRedisTemplate.execute(REPAIR, List.of(DIRECT_PREFIX + receiverId), args.toArray());
+                fixed += written != null ? written : 0;
+            }
+        }
+        return fixed;
+    }
+}
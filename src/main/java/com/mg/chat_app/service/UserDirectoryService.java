@@ -0,0 +1,146 @@
+package com.mg.chat_app.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import com.mg.chat_app.dto.CursorPage;
+import com.mg.chat_app.dto.UserDto;
+import com.mg.chat_app.entity.User;
+import com.mg.chat_app.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Username directory kept in a Redis sorted set with every score at 0, so members
+ * sort lexicographically and prefix search is a ZRANGEBYLEX. Members are
+ * "lowercase-username \0 userId \0 username".
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDirectoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectoryService.class);
+    private static final String DIRECTORY_KEY = "users:directory";
+    private static final String BACKFILLED_KEY = "users:directory:backfilled";
+    private static final String BACKFILL_LOCK = "lock:user-directory-backfill";
+    private static final Duration BACKFILL_LOCK_TTL = Duration.ofMinutes(10);
+    private static final char SEP = '\u0000';
+    private static final int BACKFILL_CHUNK = 1000;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserRepository userRepository;
+    private final NodeIdentity nodeIdentity;
+
+    public void add(User user) {
+        stringRedisTemplate.opsForZSet().add(DIRECTORY_KEY, member(user), 0);
+    }
+
+    public CursorPage<UserDto> search(String prefix, String cursor, int limit, Long excludeUserId) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String normalized = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+
+        Range.Bound<String> lower;
+        if (cursor != null && !cursor.isBlank()) {
+            String after = decodeCursor(cursor);
+            if (!after.startsWith(normalized)) {
+                throw new IllegalArgumentException("Cursor does not match prefix");
+            }
+            lower = Range.Bound.exclusive(after);
+        } else {
+            lower = normalized.isEmpty() ? Range.Bound.unbounded() : Range.Bound.inclusive(normalized);
+        }
+        Range.Bound<String> upper = normalized.isEmpty()
+                ? Range.Bound.unbounded()
+                : Range.Bound.inclusive(normalized + '\uffff');
+
+        ZSetOperations<String, String> zset = stringRedisTemplate.opsForZSet();
+        Set<String> members = zset.rangeByLex(DIRECTORY_KEY, Range.of(lower, upper), Limit.limit().count(size + 1));
+        List<String> rows = members == null ? List.of() : new ArrayList<>(members);
+
+        boolean hasMore = rows.size() > size;
+        List<String> page = hasMore ? rows.subList(0, size) : rows;
+        List<UserDto> users = new ArrayList<>(page.size());
+        for (String m : page) {
+            String[] parts = m.split(String.valueOf(SEP), 3);
+            Long userId = Long.valueOf(parts[1]);
+            if (!userId.equals(excludeUserId)) {
+                users.add(new UserDto(userId, parts[2]));
+            }
+        }
+        String next = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(users, next, null);
+    }
+
+    /*
+     * Seeds the directory from MySQL, walking users by id in chunks. ZADD is idempotent,
+     * so it runs until a completion marker exists rather than only while the set is
+     * empty: a user registered mid-rollout must not stop the backfill. One node at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(BACKFILLED_KEY))) {
+            return;
+        }
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(BACKFILL_LOCK, nodeIdentity.getNodeId(), BACKFILL_LOCK_TTL);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+        try {
+            long lastId = 0;
+            int total = 0;
+            List<User> chunk;
+            do {
+                chunk = userRepository.findTop1000ByUserIdGreaterThanOrderByUserIdAsc(lastId);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(chunk.size() * 2);
+                chunk.forEach(u -> tuples.add(ZSetOperations.TypedTuple.of(member(u), 0d)));
+                stringRedisTemplate.opsForZSet().add(DIRECTORY_KEY, tuples);
+                lastId = chunk.get(chunk.size() - 1).getUserId();
+                total += chunk.size();
+            } while (chunk.size() == BACKFILL_CHUNK);
+            stringRedisTemplate.opsForValue().set(BACKFILLED_KEY, Instant.now().toString());
+            log.info("Backfilled user directory with {} user(s)", total);
+        } catch (Exception e) {
+            log.error("User directory backfill failed, it will run again on the next start", e);
+        } finally {
+            stringRedisTemplate.delete(BACKFILL_LOCK);
+        }
+    }
+
+    private String member(User user) {
+        return user.getUsername().toLowerCase(Locale.ROOT) + SEP + user.getUserId() + SEP + user.getUsername();
+    }
+
+    private String encodeCursor(String member) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(member.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.mg.chat_app.service;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
-import com.mg.chat_app.entity.Presence;
-import com.mg.chat_app.repository.PresenceRepository;
-
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -20,34 +27,52 @@ public class WebSocketSessionService {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketSessionService.class);
     private static final String SESSION_KEY = "ws:sessions";
+    private static final String NODES_PREFIX = "ws:nodes:";
     private static final String PRESENCE_PREFIX = "presence:";
     private static final Duration PRESENCE_TTL = Duration.ofMinutes(5);
 
+    // Drops this node from the user's set; on the last node the user goes offline in the same step,
+    // so a connect through another node cannot slip in between the check and the delete
+    private static final RedisScript<Long> LEAVE = new DefaultRedisScript<>(
+            "redis.call('SREM', KEYS[1], ARGV[1]) " +
+            "local left = redis.call('SCARD', KEYS[1]) " +
+            "if left == 0 then " +
+            "  redis.call('DEL', KEYS[2]) " +
+            "  redis.call('HDEL', KEYS[3], ARGV[2]) " +
+            "end " +
+            "return left", Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
-    private final PresenceRepository presenceRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PresenceWriteBehind presenceWriteBehind;
+    private final NodeIdentity nodeIdentity;
 
+    /*
+     * A user can hold tabs on several nodes at once, so ws:nodes:{userId} is a set of
+     * nodes and every one of them gets the user's messages.
+     */
     public void registerUser(Long userId, String sessionId) {
+        stringRedisTemplate.opsForSet().add(NODES_PREFIX + userId, nodeIdentity.getNodeId());
         redisTemplate.opsForHash().put(SESSION_KEY, userId.toString(), sessionId);
         redisTemplate.opsForValue().set(PRESENCE_PREFIX + userId, "ONLINE", PRESENCE_TTL);
+        presenceWriteBehind.online(userId);
 
-        Presence presence = presenceRepository.findById(userId)
-                .orElse(Presence.builder().userId(userId).build());
-        presence.setIsOnline(true);
-        presenceRepository.save(presence);
-
-        log.info("User {} registered with session {}", userId, sessionId);
+        log.info("User {} registered with session {} on node {}", userId, sessionId, nodeIdentity.getNodeId());
     }
 
+    /*
+     * Called on the last local disconnect of the user. Sessions on other nodes keep theirs.
+     */
     public void removeUser(Long userId) {
-        redisTemplate.opsForHash().delete(SESSION_KEY, userId.toString());
-        redisTemplate.delete(PRESENCE_PREFIX + userId);
-
-        Optional<Presence> opt = presenceRepository.findById(userId);
-        opt.ifPresent(p -> {
-            p.setIsOnline(false);
-            p.setLastSeen(LocalDateTime.now());
-            presenceRepository.save(p);
-        });
+        Long left = stringRedisTemplate.execute(LEAVE,
+                List.of(NODES_PREFIX + userId, PRESENCE_PREFIX + userId, SESSION_KEY),
+                nodeIdentity.getNodeId(), userId.toString());
+        if (left != null && left > 0) {
+            log.info("User {} left node {}, still connected through {} other node(s)",
+                    userId, nodeIdentity.getNodeId(), left);
+            return;
+        }
+        presenceWriteBehind.offline(userId);
 
         log.info("User {} removed from sessions", userId);
     }
@@ -56,7 +81,61 @@ public class WebSocketSessionService {
         return Boolean.TRUE.equals(redisTemplate.opsForHash().hasKey(SESSION_KEY, userId.toString()));
     }
 
-    public void renewPresence(Long userId) {
-        redisTemplate.expire(PRESENCE_PREFIX + userId, PRESENCE_TTL);
+    /*
+     * Nodes holding each user's WebSockets, with one pipelined SMEMBERS per user.
+     * Offline users are absent from the result.
+     */
+    public Map<Long, Set<String>> findNodes(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ordered = new ArrayList<>(userIds);
+        List<Object> nodes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Long userId : ordered) {
+                redis.sMembers(NODES_PREFIX + userId);
+            }
+            return null;
+        });
+
+        Map<Long, Set<String>> result = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            if (nodes.get(i) instanceof Set<?> members && !members.isEmpty()) {
+                Set<String> ids = new HashSet<>(members.size() * 2);
+                members.forEach(m -> ids.add(m.toString()));
+                result.put(ordered.get(i), ids);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Online flags for an explicit set of users with one MGET over presence:{id}.
+     */
+    public Map<Long, Boolean> onlineStatus(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        List<String> keys = userIds.stream().map(id -> PRESENCE_PREFIX + id).toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+
+        Map<Long, Boolean> result = new HashMap<>(userIds.size() * 2);
+        for (int i = 0; i < userIds.size(); i++) {
+            result.put(userIds.get(i), values != null && values.get(i) != null);
+        }
+        return result;
+    }
+
+    /*
+     * Heartbeats only touch Redis; MySQL catches up through PresenceWriteBehind.
+     */
+    public void heartbeat(Long userId) {
+        redisTemplate.opsForValue().set(PRESENCE_PREFIX + userId, "ONLINE", PRESENCE_TTL);
+        presenceWriteBehind.online(userId);
+    }
+
+    public void goOffline(Long userId) {
+        redisTemplate.delete(PRESENCE_PREFIX + userId);
+        presenceWriteBehind.offline(userId);
     }
 }
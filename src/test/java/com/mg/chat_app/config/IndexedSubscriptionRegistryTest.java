@@ -0,0 +1,181 @@
+package com.mg.chat_app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+/*
+ * Checks the indexed registry against Spring's DefaultSubscriptionRegistry, which the
+ * simple broker used before, by applying the same operations to both.
+ */
+class IndexedSubscriptionRegistryTest {
+
+    private static final List<String> DESTINATIONS = List.of(
+            "/topic/messages/1", "/topic/messages/2", "/topic/groups/1", "/topic/presence", "/queue/errors");
+    private static final List<String> PATTERNS = List.of(
+            "/topic/messages/*", "/topic/**", "/topic/groups/{id}");
+
+    private final IndexedSubscriptionRegistry indexed = new IndexedSubscriptionRegistry();
+    private final DefaultSubscriptionRegistry reference = new DefaultSubscriptionRegistry();
+
+    @Test
+    void subscribeUnsubscribeAndDisconnect() {
+        subscribe("s1", "sub-0", "/topic/messages/1");
+        subscribe("s1", "sub-1", "/topic/presence");
+        subscribe("s2", "sub-0", "/topic/messages/1");
+        assertBoth("/topic/messages/1", Map.of("s1", Set.of("sub-0"), "s2", Set.of("sub-0")));
+
+        unsubscribe("s1", "sub-0");
+        assertBoth("/topic/messages/1", Map.of("s2", Set.of("sub-0")));
+        assertBoth("/topic/presence", Map.of("s1", Set.of("sub-1")));
+
+        disconnect("s1");
+        assertBoth("/topic/presence", Map.of());
+        disconnect("s2");
+        assertBoth("/topic/messages/1", Map.of());
+        assertEquals(0, indexed.destinationCount(), "empty destinations leave the index");
+    }
+
+    @Test
+    void wildcardAndExactOverlap() {
+        subscribe("s1", "sub-0", "/topic/messages/1");
+        subscribe("s1", "sub-1", "/topic/messages/*");
+        subscribe("s2", "sub-0", "/topic/**");
+
+        assertBoth("/topic/messages/1", Map.of("s1", Set.of("sub-0", "sub-1"), "s2", Set.of("sub-0")));
+        assertBoth("/topic/messages/2", Map.of("s1", Set.of("sub-1"), "s2", Set.of("sub-0")));
+        assertBoth("/queue/errors", Map.of());
+
+        unsubscribe("s1", "sub-1");
+        assertBoth("/topic/messages/2", Map.of("s2", Set.of("sub-0")));
+        assertBoth("/topic/messages/1", Map.of("s1", Set.of("sub-0"), "s2", Set.of("sub-0")));
+    }
+
+    @Test
+    void emptyRegistryAndUnknownIdsFindNothing() {
+        assertBoth("/topic/messages/1", Map.of());
+
+        unsubscribe("nobody", "sub-0");
+        disconnect("nobody");
+        subscribe("s1", "sub-0", "/topic/presence");
+        unsubscribe("s1", "sub-9");
+        assertBoth("/topic/messages/1", Map.of());
+        assertBoth("/topic/presence", Map.of("s1", Set.of("sub-0")));
+    }
+
+    /*
+     * STOMP requires ids to be unique per connection and the default registry keeps the
+     * first destination for a reused id, so this pins the indexed registry's own rule:
+     * the latest SUBSCRIBE wins and the id is never listed twice.
+     */
+    @Test
+    void resubscribingAnIdMovesIt() {
+        indexed.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/messages/1"));
+        indexed.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/messages/2"));
+        assertEquals(Map.of(), find(indexed, "/topic/messages/1"));
+        assertEquals(Map.of("s1", Set.of("sub-0")), find(indexed, "/topic/messages/2"));
+
+        indexed.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/messages/2"));
+        assertEquals(List.of("sub-0"), indexed.findSubscriptions(
+                frame(SimpMessageType.MESSAGE, null, null, "/topic/messages/2")).get("s1"));
+
+        indexed.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/messages/*"));
+        assertEquals(Map.of("s1", Set.of("sub-0")), find(indexed, "/topic/messages/1"));
+        indexed.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/presence"));
+        assertEquals(Map.of(), find(indexed, "/topic/messages/1"));
+
+        indexed.unregisterSubscription(frame(SimpMessageType.UNSUBSCRIBE, "s1", "sub-0", null));
+        assertEquals(Map.of(), find(indexed, "/topic/presence"));
+        assertEquals(0, indexed.destinationCount());
+    }
+
+    @Test
+    void randomOperationsMatchTheDefaultRegistry() {
+        Random random = new Random(20240611L);
+        List<String[]> live = new ArrayList<>();
+        int nextId = 0;
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6 || live.isEmpty()) {
+                String session = "s" + random.nextInt(8);
+                String destination = random.nextInt(5) == 0
+                        ? PATTERNS.get(random.nextInt(PATTERNS.size()))
+                        : DESTINATIONS.get(random.nextInt(DESTINATIONS.size()));
+                String id = "sub-" + nextId++;
+                subscribe(session, id, destination);
+                live.add(new String[] {session, id});
+            } else if (op < 9) {
+                String[] subscription = live.remove(random.nextInt(live.size()));
+                unsubscribe(subscription[0], subscription[1]);
+            } else {
+                String session = live.get(random.nextInt(live.size()))[0];
+                disconnect(session);
+                live.removeIf(s -> s[0].equals(session));
+            }
+            for (String destination : DESTINATIONS) {
+                assertEquals(find(reference, destination), find(indexed, destination),
+                        "step " + step + " at " + destination);
+            }
+        }
+        assertTrue(nextId > 1000);
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        Message<byte[]> message = frame(SimpMessageType.SUBSCRIBE, sessionId, subscriptionId, destination);
+        indexed.registerSubscription(message);
+        reference.registerSubscription(message);
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        Message<byte[]> message = frame(SimpMessageType.UNSUBSCRIBE, sessionId, subscriptionId, null);
+        indexed.unregisterSubscription(message);
+        reference.unregisterSubscription(message);
+    }
+
+    private void disconnect(String sessionId) {
+        indexed.unregisterAllSubscriptions(sessionId);
+        reference.unregisterAllSubscriptions(sessionId);
+    }
+
+    private void assertBoth(String destination, Map<String, Set<String>> expected) {
+        assertEquals(expected, find(reference, destination), "default registry at " + destination);
+        assertEquals(expected, find(indexed, destination), "indexed registry at " + destination);
+    }
+
+    private static Map<String, Set<String>> find(SubscriptionRegistry registry, String destination) {
+        MultiValueMap<String, String> found = registry.findSubscriptions(
+                frame(SimpMessageType.MESSAGE, null, null, destination));
+        Map<String, Set<String>> result = new TreeMap<>();
+        found.forEach((session, ids) -> {
+            if (!ids.isEmpty()) {
+                result.put(session, new TreeSet<>(ids));
+            }
+        });
+        return result;
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId,
+            String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
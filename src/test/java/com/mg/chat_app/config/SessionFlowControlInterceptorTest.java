@@ -0,0 +1,146 @@
+package com.mg.chat_app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SessionFlowControlInterceptorTest {
+
+    private static final int MAX_PENDING = 2;
+    private static final int HANDLERS = 3;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionFlowControlInterceptor flowControl;
+    private AtomicInteger handled;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flowControl = new SessionFlowControlInterceptor(meterRegistry, 1000, 1000, MAX_PENDING);
+        handled = new AtomicInteger();
+    }
+
+    @Test
+    void framesDroppedByLaterInterceptorDoNotLeakIntoBacklog() {
+        RejectingInterceptor limiter = new RejectingInterceptor();
+        ExecutorSubscribableChannel channel = channel(null);
+        channel.setInterceptors(List.of(flowControl, limiter));
+
+        limiter.reject = true;
+        for (int i = 0; i < 100; i++) {
+            assertFalse(channel.send(frame("s1")));
+        }
+        assertEquals(0, pendingTotal());
+
+        limiter.reject = false;
+        assertTrue(channel.send(frame("s1")));
+        assertEquals(HANDLERS, handled.get());
+        assertEquals(0, pendingTotal());
+        assertEquals(0, dropped("backlog"));
+    }
+
+    @Test
+    void backlogIsCappedPerSessionAndDrainsAfterHandling() {
+        List<Runnable> queued = new ArrayList<>();
+        ExecutorSubscribableChannel channel = channel(queued::add);
+        channel.setInterceptors(List.of(flowControl));
+
+        for (int i = 0; i < MAX_PENDING + 3; i++) {
+            channel.send(frame("s1"));
+        }
+        assertEquals(MAX_PENDING * HANDLERS, pendingTotal());
+        assertEquals(3, dropped("backlog"));
+
+        // Another session is not affected by the first one's backlog
+        assertTrue(channel.send(frame("s2")));
+
+        queued.forEach(Runnable::run);
+        assertEquals(0, pendingTotal());
+        assertEquals((MAX_PENDING + 1) * HANDLERS, handled.get());
+        assertTrue(channel.send(frame("s1")));
+    }
+
+    @Test
+    void failedDispatchGivesBackCountedHandOffs() {
+        ExecutorSubscribableChannel channel = channel(task -> {
+            throw new IllegalStateException("queue full");
+        });
+        channel.setInterceptors(List.of(flowControl));
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                channel.send(frame("s1"));
+            } catch (RuntimeException expected) {
+                // MessageDeliveryException wrapping the rejection
+            }
+        }
+        assertEquals(0, pendingTotal());
+    }
+
+    @Test
+    void serverFramesAreNotCounted() {
+        ExecutorSubscribableChannel channel = channel(null);
+        channel.setInterceptors(List.of(flowControl, new RejectingInterceptor(true)));
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+        accessor.setSessionId("s1");
+        channel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        assertEquals(0, pendingTotal());
+    }
+
+    private ExecutorSubscribableChannel channel(Executor executor) {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        for (int i = 0; i < HANDLERS; i++) {
+            channel.subscribe(message -> handled.incrementAndGet());
+        }
+        return channel;
+    }
+
+    private static Message<byte[]> frame(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/app/typing");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private double pendingTotal() {
+        return meterRegistry.get("chat.stomp.session.inbound.pending.total").gauge().value();
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("chat.stomp.inbound.dropped").tag("reason", reason).counter().count();
+    }
+
+    private static final class RejectingInterceptor implements ChannelInterceptor {
+        private boolean reject;
+
+        private RejectingInterceptor() {
+        }
+
+        private RejectingInterceptor(boolean reject) {
+            this.reject = reject;
+        }
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            return reject ? null : message;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mg.chat_app.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.mg.chat_app.entity.Message;
+
+class MessageCursorTest {
+
+    @Test
+    void roundTripsBothDirections() {
+        Message message = Message.builder()
+                .messageId(123456789012345L)
+                .createdAt(LocalDateTime.of(2025, 3, 4, 5, 6, 7, 890_000_000))
+                .build();
+
+        for (MessageCursor cursor : new MessageCursor[] {
+                MessageCursor.olderThan(message), MessageCursor.newerThan(message) }) {
+            String encoded = cursor.encode();
+            assertFalse(encoded.contains("=") || encoded.contains("+") || encoded.contains("/"),
+                    "cursor must be URL safe");
+
+            MessageCursor decoded = MessageCursor.decode(encoded);
+            assertEquals(cursor.getDirection(), decoded.getDirection());
+            assertEquals(message.getCreatedAt(), decoded.getCreatedAt());
+            assertEquals(message.getMessageId(), decoded.getMessageId());
+        }
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String raw : new String[] {
+                "O|2025-03-04T05:06:07",
+                "O|not-a-date|1",
+                "N|2025-03-04T05:06:07|abc",
+                "" }) {
+            assertThrows(IllegalArgumentException.class, () -> MessageCursor.decode(encode(raw)), raw);
+        }
+        assertThrows(IllegalArgumentException.class, () -> MessageCursor.decode("*not base64*"));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mg.chat_app.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.bucket4j.EstimationProbe;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+
+class HybridRateLimiterTest {
+
+    private static final Long USER = 42L;
+
+    private BucketProxy bucket;
+    private HybridRateLimiter limiter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        bucket = mock(BucketProxy.class);
+        RemoteBucketBuilder<String> builder = mock(RemoteBucketBuilder.class);
+        when(builder.build(anyString(), any(Supplier.class))).thenReturn(bucket);
+        ProxyManager<String> proxyManager = mock(ProxyManager.class);
+        when(proxyManager.builder()).thenReturn(builder);
+        limiter = new HybridRateLimiter(proxyManager, "test", 60, 5, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void spendsBorrowedTokensLocally() {
+        when(bucket.tryConsumeAsMuchAsPossible(anyLong())).thenReturn(5L);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(USER));
+        }
+        verify(bucket, times(1)).tryConsumeAsMuchAsPossible(5);
+    }
+
+    @Test
+    void retryAfterFollowsTheBucketRefill() {
+        when(bucket.tryConsumeAsMuchAsPossible(anyLong())).thenReturn(0L);
+        when(bucket.estimateAbilityToConsume(1))
+                .thenReturn(EstimationProbe.canNotBeConsumed(0, TimeUnit.MILLISECONDS.toNanos(19_200)));
+
+        assertFalse(limiter.tryAcquire(USER));
+        assertEquals(20, limiter.retryAfterSeconds(USER));
+
+        // Refused locally for the whole wait, without asking Redis again
+        assertFalse(limiter.tryAcquire(USER));
+        verify(bucket, times(1)).tryConsumeAsMuchAsPossible(anyLong());
+    }
+
+    @Test
+    void shortRefillStillWaitsTheDenyBackoff() {
+        when(bucket.tryConsumeAsMuchAsPossible(anyLong())).thenReturn(0L);
+        when(bucket.estimateAbilityToConsume(1))
+                .thenReturn(EstimationProbe.canNotBeConsumed(0, TimeUnit.MILLISECONDS.toNanos(10)));
+
+        assertFalse(limiter.tryAcquire(USER));
+        assertEquals(1, limiter.retryAfterSeconds(USER));
+    }
+}
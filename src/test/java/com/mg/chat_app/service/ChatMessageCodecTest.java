@@ -0,0 +1,98 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mg.chat_app.dto.ChatMessageDto;
+
+class ChatMessageCodecTest {
+
+    @Test
+    void roundTripsEveryCombinationOfPresentFields() {
+        for (int mask = 0; mask < 32; mask++) {
+            ChatMessageDto dto = new ChatMessageDto(
+                    (mask & 1) != 0 ? 1_234_567_890_123L : null,
+                    (mask & 2) != 0 ? 42L : null,
+                    (mask & 4) != 0 ? 0L : null,
+                    (mask & 8) != 0 ? "hé 👋 \0 end" : null,
+                    (mask & 16) != 0 ? Long.MAX_VALUE : null);
+
+            byte[] encoded = ChatMessageCodec.encode(dto);
+            assertEquals(ChatMessageCodec.VERSION, encoded[0]);
+            assertEquals(dto, ChatMessageCodec.decode(encoded), "mask " + mask);
+        }
+    }
+
+    @Test
+    void keepsEmptyContentApartFromNoContent() {
+        ChatMessageDto empty = new ChatMessageDto(1L, 2L, 3L, "");
+        assertEquals("", ChatMessageCodec.decode(ChatMessageCodec.encode(empty)).getContent());
+
+        ChatMessageDto none = new ChatMessageDto(1L, 2L, 3L, null);
+        assertNull(ChatMessageCodec.decode(ChatMessageCodec.encode(none)).getContent());
+    }
+
+    @Test
+    void isSmallerThanJson() throws Exception {
+        ChatMessageDto dto = new ChatMessageDto(1_234_567_890_123L, 1_234_567_890_124L, 1_234_567_890_125L, "hi");
+        byte[] json = new ObjectMapper().writeValueAsBytes(dto);
+        assertTrue(ChatMessageCodec.encode(dto).length * 3 < json.length);
+    }
+
+    @Test
+    void decodesJsonFromThePreviousSerializers() throws Exception {
+        ChatMessageDto dto = new ChatMessageDto(10L, 20L, null, "from json", 30L);
+        byte[] json = new ObjectMapper().writeValueAsBytes(dto);
+        assertTrue(ChatMessageCodec.isJson(json));
+        assertEquals(dto, ChatMessageCodec.decode(json));
+
+        // GenericJackson2JsonRedisSerializer adds a type property
+        byte[] typed = ("{\"@class\":\"com.mg.chat_app.dto.ChatMessageDto\",\"messageId\":10,"
+                + "\"senderId\":20,\"content\":\"from json\",\"groupId\":30}").getBytes(StandardCharsets.UTF_8);
+        assertEquals(dto, ChatMessageCodec.decode(typed));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ChatMessageCodec.decode("{\"messageId\":".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void emptyInputDecodesToNull() {
+        assertNull(ChatMessageCodec.decode(null));
+        assertNull(ChatMessageCodec.decode(new byte[0]));
+    }
+
+    @Test
+    void rejectsOtherVersionsAndUnknownFields() {
+        byte[] encoded = ChatMessageCodec.encode(new ChatMessageDto(1L, 2L, 3L, "x"));
+
+        byte[] nextVersion = encoded.clone();
+        nextVersion[0] = (byte) (ChatMessageCodec.VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> ChatMessageCodec.decode(nextVersion));
+
+        for (int bit = 5; bit < 8; bit++) {
+            byte[] unknownField = encoded.clone();
+            unknownField[1] |= (byte) (1 << bit);
+            assertThrows(IllegalArgumentException.class, () -> ChatMessageCodec.decode(unknownField), "bit " + bit);
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ChatMessageCodec.decode(new byte[] {ChatMessageCodec.VERSION}));
+    }
+
+    @Test
+    void rejectsTruncatedMessages() {
+        byte[] encoded = ChatMessageCodec.encode(new ChatMessageDto(300L, 70_000L, 5L, "content", 9L));
+        for (int length = 1; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> ChatMessageCodec.decode(truncated), "length " + length);
+        }
+    }
+}
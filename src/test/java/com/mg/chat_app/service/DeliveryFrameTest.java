@@ -0,0 +1,70 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DeliveryFrameTest {
+
+    private static final byte[] PAYLOAD = "{\"content\":\"héllo\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void roundTripsRecipientsAndPayload() {
+        List<Long> recipients = List.of(0L, 1L, 127L, 128L, 16_384L, 1L << 52, Long.MAX_VALUE);
+        DeliveryFrame frame = DeliveryFrame.decode(DeliveryFrame.encode(recipients, PAYLOAD));
+
+        assertArrayEquals(recipients.stream().mapToLong(Long::longValue).toArray(), frame.recipientIds());
+        assertArrayEquals(PAYLOAD, frame.payload());
+    }
+
+    @Test
+    void roundTripsEmptyRecipientsAndPayload() {
+        DeliveryFrame frame = DeliveryFrame.decode(DeliveryFrame.encode(List.of(), new byte[0]));
+
+        assertEquals(0, frame.recipientIds().length);
+        assertEquals(0, frame.payload().length);
+    }
+
+    @Test
+    void smallIdsTakeOneByteEach() {
+        byte[] encoded = DeliveryFrame.encode(List.of(5L, 6L), PAYLOAD);
+        assertEquals(1 + 1 + 2 + PAYLOAD.length, encoded.length);
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        byte[] encoded = DeliveryFrame.encode(List.of(1L), PAYLOAD);
+        encoded[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> DeliveryFrame.decode(encoded));
+        assertThrows(IllegalArgumentException.class, () -> DeliveryFrame.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> DeliveryFrame.decode(PAYLOAD));
+    }
+
+    @Test
+    void rejectsTruncatedFrames() {
+        byte[] encoded = DeliveryFrame.encode(List.of(300L, 70_000L), new byte[0]);
+        for (int length = 1; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> DeliveryFrame.decode(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsImpossibleRecipientCounts() {
+        // Count of 2^62 followed by a single byte
+        byte[] huge = {1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x40, 7};
+        assertThrows(IllegalArgumentException.class, () -> DeliveryFrame.decode(huge));
+
+        byte[] overlong = new byte[12];
+        overlong[0] = 1;
+        Arrays.fill(overlong, 1, 12, (byte) 0xFF);
+        assertThrows(IllegalArgumentException.class, () -> DeliveryFrame.decode(overlong));
+    }
+}
@@ -0,0 +1,144 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.mg.chat_app.entity.GroupMember;
+import com.mg.chat_app.model.GroupRole;
+import com.mg.chat_app.repository.GroupMemberRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GroupMembershipCacheTest {
+
+    private static final long GROUP = 7L;
+
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final List<GroupMember> rows = new ArrayList<>();
+
+    private GroupMemberRepository repository;
+    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(GroupMemberRepository.class);
+        when(repository.findByGroupId(anyLong())).thenAnswer(inv -> List.copyOf(rows));
+        redisTemplate = mock(RedisTemplate.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(hashOps.entries(anyString()))
+                .thenAnswer(inv -> new HashMap<>(hashes.getOrDefault(inv.<String>getArgument(0), Map.of())));
+        when(stringRedisTemplate.<Object, Object>opsForHash()).thenReturn(hashOps);
+
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        when(valueOps.get(anyString())).thenAnswer(inv -> values.get(inv.<String>getArgument(0)));
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOps);
+
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(inv -> runScript(inv.getArgument(0), inv.getArgument(1), (Object[]) inv.getRawArguments()[2]));
+
+        rows.add(member(1L, GroupRole.ADMIN));
+        rows.add(member(2L, GroupRole.MEMBER));
+    }
+
+    @Test
+    void removedMemberIsGoneAfterInvalidation() {
+        GroupMembershipCache cache = newCache();
+        assertTrue(cache.get(GROUP).isMember(2L));
+
+        rows.removeIf(m -> m.getUserId() == 2L);
+        cache.invalidate(GROUP);
+
+        GroupMembership after = cache.get(GROUP);
+        assertFalse(after.isMember(2L));
+        assertTrue(after.isAdmin(1L));
+        verify(redisTemplate).convertAndSend("chat:group-membership", String.valueOf(GROUP));
+    }
+
+    @Test
+    void loaderThatReadBeforeRemovalDoesNotRepopulateRedis() {
+        // The removal commits and invalidates between this loader's MySQL read and its Redis write
+        when(repository.findByGroupId(anyLong())).thenAnswer(inv -> {
+            List<GroupMember> snapshot = List.copyOf(rows);
+            rows.removeIf(m -> m.getUserId() == 2L);
+            newCache().invalidate(GROUP);
+            return snapshot;
+        });
+        newCache().get(GROUP);
+        assertTrue(hashes.isEmpty(), "stale membership must not be written back");
+
+        when(repository.findByGroupId(anyLong())).thenAnswer(inv -> List.copyOf(rows));
+        assertFalse(newCache().get(GROUP).isMember(2L));
+    }
+
+    @Test
+    void storedHashServesOtherNodes() {
+        newCache().get(GROUP);
+
+        GroupMembership fromRedis = newCache().get(GROUP);
+        assertTrue(fromRedis.isMember(2L));
+        assertTrue(fromRedis.isAdmin(1L));
+        assertFalse(fromRedis.isAdmin(2L));
+        verify(repository, times(1)).findByGroupId(eq(GROUP));
+    }
+
+    private GroupMembershipCache newCache() {
+        return new GroupMembershipCache(repository, redisTemplate, stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(5), Duration.ofMinutes(10));
+    }
+
+    // Mirrors the two Lua scripts against the in-memory maps
+    private Long runScript(RedisScript<Long> script, List<String> keys, Object[] args) {
+        String hashKey = keys.get(0);
+        String generationKey = keys.get(1);
+        if (script == GroupMembershipCache.INVALIDATE) {
+            long generation = Long.parseLong(values.getOrDefault(generationKey, "0")) + 1;
+            values.put(generationKey, Long.toString(generation));
+            hashes.remove(hashKey);
+            return generation;
+        }
+        if (!values.getOrDefault(generationKey, "").equals(args[0])) {
+            return 0L;
+        }
+        Map<Object, Object> hash = new HashMap<>();
+        for (int i = 2; i < args.length; i += 2) {
+            hash.put(args[i], args[i + 1]);
+        }
+        hashes.put(hashKey, hash);
+        return 1L;
+    }
+
+    private static GroupMember member(long userId, GroupRole role) {
+        return GroupMember.builder().groupId(GROUP).userId(userId).role(role).build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.mg.chat_app.dto.GroupDto;
+import com.mg.chat_app.entity.ChatGroup;
+import com.mg.chat_app.entity.GroupMember;
+import com.mg.chat_app.entity.User;
+import com.mg.chat_app.model.GroupRole;
+import com.mg.chat_app.repository.ChatGroupRepository;
+import com.mg.chat_app.repository.GroupMemberRepository;
+import com.mg.chat_app.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@DataJpaTest
+@Import(GroupQueryService.class)
+@TestPropertySource(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class GroupQueryServiceTest {
+
+    private static final int GROUPS = 6;
+    private static final int MEMBERS_PER_GROUP = 10;
+
+    @Autowired
+    private GroupQueryService groupQueryService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ChatGroupRepository groupRepository;
+    @Autowired
+    private GroupMemberRepository memberRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long viewerId;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < MEMBERS_PER_GROUP; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("user" + i)
+                    .password("x")
+                    .createdAt(LocalDateTime.now())
+                    .build()));
+        }
+        viewerId = users.get(0).getUserId();
+
+        for (int g = 0; g < GROUPS; g++) {
+            ChatGroup group = groupRepository.save(ChatGroup.builder()
+                    .name("group" + g)
+                    .createdBy(viewerId)
+                    .build());
+            for (User user : users) {
+                memberRepository.save(GroupMember.builder()
+                        .groupId(group.getGroupId())
+                        .userId(user.getUserId())
+                        .role(user.getUserId().equals(viewerId) ? GroupRole.ADMIN : GroupRole.MEMBER)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getGroupsForUserUsesConstantQueryCount() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        List<GroupDto> groups = groupQueryService.getGroupsForUser(viewerId);
+
+        assertEquals(GROUPS, groups.size());
+        groups.forEach(g -> assertEquals(MEMBERS_PER_GROUP, g.getMembers().size()));
+        assertEquals("user1", groups.get(0).getMembers().get(1).getUsername());
+        assertEquals(2, stats.getPrepareStatementCount(),
+                "groups and members must load in two queries regardless of group/member count");
+    }
+}
@@ -0,0 +1,124 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.owasp.html.HtmlPolicyBuilder;
+import org.owasp.html.PolicyFactory;
+
+/*
+ * The fast path and single-pass decoder must give exactly what the original
+ * policy-plus-replace chain gave, for every input.
+ */
+class InputSanitizerTest {
+
+    private static final PolicyFactory POLICY = new HtmlPolicyBuilder().toFactory();
+
+    private final InputSanitizer sanitizer = new InputSanitizer();
+
+    private static String reference(String input) {
+        if (input == null) return null;
+        return POLICY.sanitize(input)
+                .replace("&amp;", "&")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'");
+    }
+
+    @Test
+    void matchesReferenceOnCorpus() {
+        List<String> corpus = new ArrayList<>(List.of(
+                "",
+                " ",
+                "hello",
+                "hey, are we still on for lunch tomorrow?",
+                "I'm here, it's 5 o'clock",
+                "a > b and c >= d",
+                "tabs\tand\nnewlines\r\nand carriage returns\r",
+                "Fish & chips",
+                "1 < 2",
+                "<b>bold</b> text",
+                "<script>alert('x')</script>after",
+                "<a href=\"https://example.com\">link</a>",
+                "<img src=x onerror=alert(1)>",
+                "<!-- comment --> visible",
+                "&lt;b&gt; already escaped",
+                "&amp;lt;double&amp;gt;",
+                "&amp;amp;lt;",
+                "&amp;quot;quoted&amp;#39;",
+                "&#60;numeric&#62;",
+                "&nbsp;&copy;&unknown;",
+                "& alone; &; &#; &#x;",
+                "\"quotes\" and 'apostrophes'",
+                "a+b=c @mention `code` {braces} {{template}}",
+                "email me at someone@example.com",
+                "café naïve résumé",
+                "你好世界",
+                "مرحبا",
+                "emoji 😀🎉",
+                "lone surrogate \ud83d end",
+                "controls \u0000\u0001\u0007\u000b\u000c\u001f end",
+                "c1 \u007f\u0080\u0085\u009f end",
+                "nonchars \ufdd0\ufdef\ufffe\uffff end",
+                "bom \ufeff and zero width \u200b",
+                "unterminated <b",
+                "unterminated tag <a href=\"x",
+                "</p></div>",
+                "<<>>",
+                ">>> quoted reply",
+                "<3 you"
+        ));
+
+        // Random strings over an alphabet weighted towards the characters that matter
+        String alphabet = "abc XYZ019 \t\n\r<>&;\"'+=@`{}#/!-é你\u0000\u0085\ufffe";
+        String[] fragments = { "&amp;", "&lt;", "&gt;", "&quot;", "&#39;", "<b>", "</b>", "<script>",
+                "amp;", "lt;", "gt;", "😀" };
+        Random random = new Random(20240325L);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                if (random.nextInt(5) == 0) {
+                    sb.append(fragments[random.nextInt(fragments.length)]);
+                } else {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            corpus.add(sb.toString());
+        }
+
+        for (String input : corpus) {
+            assertEquals(reference(input), sanitizer.sanitize(input), () -> "Mismatch for input: " + escape(input));
+        }
+    }
+
+    @Test
+    void returnsPlainInputUnchanged() {
+        String input = "see you at the station at 6, I'll bring the tickets";
+        assertSame(input, sanitizer.sanitize(input));
+    }
+
+    @Test
+    void nullStaysNull() {
+        assertNull(sanitizer.sanitize(null));
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        s.chars().forEach(c -> {
+            if (c < 0x20 || c > 0x7E) {
+                sb.append(String.format("\\u%04x", c));
+            } else {
+                sb.append((char) c);
+            }
+        });
+        return sb.toString();
+    }
+}
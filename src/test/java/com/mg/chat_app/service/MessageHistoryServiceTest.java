@@ -0,0 +1,132 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.mg.chat_app.dto.CursorPage;
+import com.mg.chat_app.entity.Message;
+import com.mg.chat_app.model.MessageStatus;
+import com.mg.chat_app.repository.MessageRepository;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@Import(MessageHistoryService.class)
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class MessageHistoryServiceTest {
+
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+    private static final long CAROL = 3L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+    @Autowired
+    private MessageHistoryService historyService;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Message> conversation = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Several rows share a created_at, split across both senders, so pages break inside the tie
+        int[] secondOffsets = {0, 1, 1, 1, 1, 1, 2, 3, 3};
+        for (int i = 0; i < secondOffsets.length; i++) {
+            long sender = i % 2 == 0 ? ALICE : BOB;
+            conversation.add(save(sender, sender == ALICE ? BOB : ALICE, T0.plusSeconds(secondOffsets[i])));
+        }
+        save(ALICE, CAROL, T0.plusSeconds(1));
+        save(CAROL, BOB, T0.plusSeconds(1));
+        entityManager.flush();
+        entityManager.clear();
+        conversation.sort(Comparator.comparing(Message::getCreatedAt)
+                .thenComparing(Message::getMessageId).reversed());
+    }
+
+    @Test
+    void olderPagesWalkTheWholeConversationOnce() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Message> page = historyService.conversation(ALICE, BOB, cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(m -> seen.add(m.getMessageId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(ids(conversation), seen);
+        assertEquals(5, pages);
+    }
+
+    @Test
+    void newerPagesReturnToTheTop() {
+        CursorPage<Message> page = historyService.conversation(BOB, ALICE, null, 3);
+        CursorPage<Message> last = page;
+        while (page.getNextCursor() != null) {
+            page = historyService.conversation(BOB, ALICE, page.getNextCursor(), 3);
+            last = page;
+        }
+        assertNull(last.getNextCursor());
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = last.getPrevCursor();
+        while (true) {
+            page = historyService.conversation(BOB, ALICE, cursor, 3);
+            if (page.getItems().isEmpty()) {
+                assertEquals(cursor, page.getPrevCursor(), "an empty newer page hands its cursor back");
+                break;
+            }
+            seen.addAll(0, ids(page.getItems()));
+            cursor = page.getPrevCursor();
+        }
+
+        List<Long> expected = ids(conversation);
+        assertEquals(expected.subList(0, expected.size() - last.getItems().size()), seen);
+    }
+
+    @Test
+    void pageBoundaryInsideEqualTimestampsSkipsNothing() {
+        CursorPage<Message> first = historyService.conversation(ALICE, BOB, null, 4);
+        CursorPage<Message> second = historyService.conversation(ALICE, BOB, first.getNextCursor(), 4);
+
+        assertEquals(first.getItems().get(3).getCreatedAt(), second.getItems().get(0).getCreatedAt());
+        assertEquals(ids(conversation.subList(4, 8)), ids(second.getItems()));
+    }
+
+    private Message save(long sender, long receiver, LocalDateTime createdAt) {
+        Message message = messageRepository.saveAndFlush(Message.builder()
+                .senderId(sender)
+                .receiverId(receiver)
+                .content("m")
+                .status(MessageStatus.SENT)
+                .build());
+        // created_at is filled on insert, so pin it afterwards
+        entityManager.createNativeQuery("UPDATE messages SET created_at = ?1 WHERE message_id = ?2")
+                .setParameter(1, createdAt)
+                .setParameter(2, message.getMessageId())
+                .executeUpdate();
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+
+    private static List<Long> ids(List<Message> messages) {
+        return messages.stream().map(Message::getMessageId).toList();
+    }
+}
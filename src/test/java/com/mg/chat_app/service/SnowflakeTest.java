@@ -0,0 +1,111 @@
+package com.mg.chat_app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeTest {
+
+    private static final long START = Snowflake.EPOCH + 1_000_000L;
+    private static final long SEQUENCE_PER_MS = 1L << Snowflake.SEQUENCE_BITS;
+
+    @Test
+    void idsIncreaseAndCarryNodeId() {
+        Snowflake snowflake = new Snowflake(42);
+        long previous = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long id = snowflake.nextId();
+            assertTrue(id > previous, "ids must strictly increase");
+            assertEquals(42, (id >>> Snowflake.SEQUENCE_BITS) & Snowflake.MAX_NODE_ID);
+            assertTrue(id < (1L << 53), "ids must stay exact in JavaScript");
+            previous = id;
+        }
+    }
+
+    @Test
+    void sequenceRollsOverIntoNextMillisecond() {
+        Snowflake snowflake = new Snowflake(1, () -> START);
+        for (int i = 0; i < SEQUENCE_PER_MS; i++) {
+            long id = snowflake.nextId();
+            assertEquals(START, Snowflake.timestampMillis(id));
+            assertEquals(i, id & (SEQUENCE_PER_MS - 1));
+        }
+        long carried = snowflake.nextId();
+        assertEquals(START + 1, Snowflake.timestampMillis(carried));
+        assertEquals(0, carried & (SEQUENCE_PER_MS - 1));
+    }
+
+    @Test
+    void clockSteppingBackNeverRepeatsOrReordersIds() {
+        AtomicLong clock = new AtomicLong(START);
+        Snowflake snowflake = new Snowflake(3, clock::get);
+        long before = snowflake.nextId();
+
+        clock.set(START - 5_000);
+        long previous = before;
+        for (int i = 0; i < 1000; i++) {
+            long id = snowflake.nextId();
+            assertTrue(id > previous);
+            assertTrue(Snowflake.timestampMillis(id) >= START);
+            previous = id;
+        }
+
+        clock.set(START + 10_000);
+        assertEquals(START + 10_000, Snowflake.timestampMillis(snowflake.nextId()));
+    }
+
+    @Test
+    void advanceToStartsPastAPreviousHolder() {
+        Snowflake previousHolder = new Snowflake(7, () -> START);
+        long last = 0;
+        for (int i = 0; i < 500; i++) {
+            last = previousHolder.nextId();
+        }
+
+        // New holder of the same node id, on a host whose clock is behind
+        Snowflake next = new Snowflake(7, () -> START - 60_000);
+        next.advanceTo(previousHolder.lastTimestampMillis() + 1);
+        assertTrue(next.nextId() > last);
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIds() {
+        Snowflake snowflake = new Snowflake(5);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 8).parallel().forEach(t -> {
+            for (int i = 0; i < 20_000; i++) {
+                ids.add(snowflake.nextId());
+            }
+        });
+        assertEquals(8 * 20_000, ids.size());
+    }
+
+    @Test
+    void refusesIdsOnceLeaseHasExpired() {
+        Snowflake snowflake = new Snowflake(9);
+        snowflake.leaseUntil(System.nanoTime() + 60_000_000_000L);
+        snowflake.nextId();
+
+        snowflake.leaseUntil(System.nanoTime() - 1);
+        assertThrows(IllegalStateException.class, snowflake::nextId);
+    }
+
+    @Test
+    void rejectsNodeIdsOutsideLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new Snowflake(-1));
+        assertThrows(IllegalArgumentException.class, () -> new Snowflake(Snowflake.MAX_NODE_ID + 1));
+        Set<Integer> valid = new HashSet<>();
+        for (int n = 0; n <= Snowflake.MAX_NODE_ID; n++) {
+            valid.add(new Snowflake(n).nodeId());
+        }
+        assertEquals(Snowflake.MAX_NODE_ID + 1, valid.size());
+    }
+}